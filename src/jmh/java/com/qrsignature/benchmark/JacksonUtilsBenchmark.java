@@ -0,0 +1,131 @@
+package com.qrsignature.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.qrsignature.controller.vo.SignConfirmResponse;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.controller.vo.SignUrlResponse;
+import com.qrsignature.util.DataUrlImage;
+import com.qrsignature.util.JacksonUtils;
+import com.qrsignature.util.QrCodeEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签署流程中各VO与缓存数据的JSON序列化/反序列化开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonUtilsBenchmark {
+
+    private static final TypeReference<Map<String, Object>> TOKEN_DATA_TYPE = new TypeReference<>() {};
+
+    private SignUrlResponse signUrlResponse;
+
+    private SignStatusResponse signStatusResponse;
+
+    private SignConfirmResponse signConfirmResponse;
+
+    private Map<String, Object> tokenData;
+
+    private String signUrlJson;
+
+    private String signStatusJson;
+
+    private String signConfirmJson;
+
+    private String tokenDataJson;
+
+    @Setup
+    public void setup() {
+        String token = JwtUtilBenchmark.newJwtUtil().generateToken("project-001", "user-001", "file-001", "META-CODE-001");
+
+        signUrlResponse = new SignUrlResponse();
+        signUrlResponse.setSignUrl("http://localhost:29308/sign?token=Bearer " + token);
+        signUrlResponse.setToken(token);
+        signUrlResponse.setStatus("PENDING");
+        signUrlResponse.setSignatureSequence(1);
+        signUrlResponse.setSignRecordId("7f1d6c1e-5b1a-4d7e-9f4c-3c2b1a0d9e8f");
+
+        signStatusResponse = new SignStatusResponse();
+        signStatusResponse.setSignRecordId(signUrlResponse.getSignRecordId());
+        signStatusResponse.setStatus("SIGNED");
+        signStatusResponse.setSignatureSequence(1);
+        signStatusResponse.setSignatureImageId("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+
+        signConfirmResponse = new SignConfirmResponse();
+        signConfirmResponse.setMessage("签署成功");
+        signConfirmResponse.setStatus("SIGNED");
+        signConfirmResponse.setSignatureBase64(DataUrlImage.parse(sampleSignature()));
+        signConfirmResponse.setSignRecordId(signUrlResponse.getSignRecordId());
+        signConfirmResponse.setSignatureSequence(1);
+
+        tokenData = new HashMap<>();
+        tokenData.put("projectId", "project-001");
+        tokenData.put("userId", "user-001");
+        tokenData.put("fileId", "file-001");
+        tokenData.put("metaCode", "META-CODE-001");
+        tokenData.put("signRecordId", signUrlResponse.getSignRecordId());
+        tokenData.put("timestamp", System.currentTimeMillis());
+
+        signUrlJson = JacksonUtils.toJsonString(signUrlResponse);
+        signStatusJson = JacksonUtils.toJsonString(signStatusResponse);
+        signConfirmJson = JacksonUtils.toJsonString(signConfirmResponse);
+        tokenDataJson = JacksonUtils.toJsonString(tokenData);
+    }
+
+    /**
+     * 以二维码PNG近似一张手写签名图片
+     */
+    static String sampleSignature() {
+        byte[] png = QrCodeEncoder.encodePng("qrsignature-benchmark-signature", 600);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(png);
+    }
+
+    @Benchmark
+    public String writeSignUrlResponse() {
+        return JacksonUtils.toJsonString(signUrlResponse);
+    }
+
+    @Benchmark
+    public SignUrlResponse readSignUrlResponse() {
+        return JacksonUtils.readJson(signUrlJson, SignUrlResponse.class);
+    }
+
+    @Benchmark
+    public String writeSignStatusResponse() {
+        return JacksonUtils.toJsonString(signStatusResponse);
+    }
+
+    @Benchmark
+    public SignStatusResponse readSignStatusResponse() {
+        return JacksonUtils.readJson(signStatusJson, SignStatusResponse.class);
+    }
+
+    @Benchmark
+    public String writeSignConfirmResponse() {
+        return JacksonUtils.toJsonString(signConfirmResponse);
+    }
+
+    @Benchmark
+    public SignConfirmResponse readSignConfirmResponse() {
+        return JacksonUtils.readJson(signConfirmJson, SignConfirmResponse.class);
+    }
+
+    @Benchmark
+    public String writeTokenData() {
+        return JacksonUtils.toJsonString(tokenData);
+    }
+
+    @Benchmark
+    public Map<String, Object> readTokenData() {
+        return JacksonUtils.readJson(tokenDataJson, TOKEN_DATA_TYPE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.qrsignature.benchmark;
+
+import com.qrsignature.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil验签开销对比：legacy为优化前每次重建密钥与解析器并重复解析的做法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    static final String SECRET = "qrsignature-secret-key-2024-for-jwt-token-generation-and-validation";
+
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = newJwtUtil();
+        token = jwtUtil.generateToken("project-001", "user-001", "file-001", "META-CODE-001");
+    }
+
+    static JwtUtil newJwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheSize", 10000L);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("project-001", "user-001", "file-001", "META-CODE-001");
+    }
+
+    @Benchmark
+    public Boolean validateTokenCached() {
+        return jwtUtil.validateToken(token);
+    }
+
+    /**
+     * 一次确认请求中Controller与Service各验签一次
+     */
+    @Benchmark
+    public Boolean confirmPathCached() {
+        return jwtUtil.validateToken(token) && jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenLegacy() {
+        return legacyValidate(token);
+    }
+
+    @Benchmark
+    public Boolean confirmPathLegacy() {
+        return legacyValidate(token) && legacyValidate(token);
+    }
+
+    private static Boolean legacyValidate(String token) {
+        legacyExtract(token);
+        return !legacyExtract(token).getExpiration().before(new Date());
+    }
+
+    private static Claims legacyExtract(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
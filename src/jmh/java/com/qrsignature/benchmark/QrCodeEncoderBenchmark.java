@@ -0,0 +1,39 @@
+package com.qrsignature.benchmark;
+
+import com.qrsignature.util.QrCodeEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二维码编码吞吐量，签署URL长度与实际token一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QrCodeEncoderBenchmark {
+
+    @Param({"200", "300", "600"})
+    private int size;
+
+    private String signUrl;
+
+    @Setup
+    public void setup() {
+        String token = JwtUtilBenchmark.newJwtUtil().generateToken("project-001", "user-001", "file-001", "META-CODE-001");
+        signUrl = "http://localhost:29308/sign?token=Bearer " + token;
+    }
+
+    @Benchmark
+    public byte[] encodePng() {
+        return QrCodeEncoder.encodePng(signUrl, size);
+    }
+
+    @Benchmark
+    public byte[] encodeSvg() {
+        return QrCodeEncoder.encodeSvg(signUrl, size);
+    }
+}
@@ -0,0 +1,88 @@
+package com.qrsignature.benchmark;
+
+import com.qrsignature.cache.CaffeineSignCache;
+import com.qrsignature.cache.GuavaSignCache;
+import com.qrsignature.cache.SignCache;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地缓存命中与未命中路径开销，miss路径的加载器不含数据库访问，只衡量缓存自身的加载与写入
+ * impl=caffeine时每个条目权重为1，容量与Guava实现的条目数上限相同
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignCacheBenchmark {
+
+    private static final int HOT_KEYS = 1000;
+
+    @Param({"guava", "caffeine"})
+    private String impl;
+
+    private SignCache<SignStatusResponse> cache;
+
+    private String[] hotKeys;
+
+    private final AtomicLong missSequence = new AtomicLong();
+
+    private int hitIndex;
+
+    @Setup
+    public void setup() {
+        cache = "caffeine".equals(impl)
+                ? new CaffeineSignCache<>("status", (key, value) -> Duration.ofMinutes(5), 10000, (key, value) -> 1)
+                : new GuavaSignCache<>("status", Duration.ofMinutes(5), 10000);
+        hotKeys = new String[HOT_KEYS];
+        for (int i = 0; i < HOT_KEYS; i++) {
+            hotKeys[i] = "record-" + i;
+            cache.put(hotKeys[i], status(hotKeys[i]));
+        }
+    }
+
+    private static SignStatusResponse status(String signRecordId) {
+        SignStatusResponse response = new SignStatusResponse();
+        response.setSignRecordId(signRecordId);
+        response.setStatus("PENDING");
+        return response;
+    }
+
+    @Benchmark
+    public SignStatusResponse getIfPresentHit() {
+        return cache.getIfPresent(hotKeys[hitIndex++ % HOT_KEYS]);
+    }
+
+    @Benchmark
+    public SignStatusResponse getIfPresentMiss() {
+        return cache.getIfPresent("absent-" + missSequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public SignStatusResponse getWithLoaderHit() throws ExecutionException {
+        String key = hotKeys[hitIndex++ % HOT_KEYS];
+        return cache.get(key, () -> status(key));
+    }
+
+    /**
+     * 每次使用新key，走SingleFlight加载并写入缓存(超过容量后伴随淘汰)
+     */
+    @Benchmark
+    public SignStatusResponse getWithLoaderMiss() throws ExecutionException {
+        String key = "loaded-" + missSequence.incrementAndGet();
+        return cache.get(key, () -> status(key));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SignStatusResponse getIfPresentHitContended() {
+        return cache.getIfPresent(hotKeys[(int) (Thread.currentThread().getId() % HOT_KEYS)]);
+    }
+}
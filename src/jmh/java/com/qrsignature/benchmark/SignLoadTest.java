@@ -0,0 +1,208 @@
+package com.qrsignature.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.qrsignature.util.JacksonUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 签署接口压力测试 - 对比平台线程与虚拟线程(spring.threads.virtual.enabled)下的并发表现
+ * <p>
+ * 同时施加三类负载：
+ * 1. streams个SSE状态长连接，全程保持不断开
+ * 2. slowClients个慢速移动端，分块缓慢上传签名确认请求，长时间占用请求处理线程
+ * 3. 固定并发的状态查询，统计吞吐量与延迟
+ * <p>
+ * 全部SSE连接收到首个状态事件、状态查询无失败且p99不超过maxP99Ms时通过，否则以退出码1结束，
+ * 慢速客户端占满请求处理线程导致状态查询排队或超时即判定为未通过
+ * <p>
+ * 用法: SignLoadTest [baseUrl] [streams] [slowClients] [durationSeconds] [maxP99Ms]
+ */
+public class SignLoadTest {
+
+    private static final int QUERY_CONCURRENCY = 32;
+
+    // 慢速客户端每块字节数与间隔
+    private static final int SLOW_CHUNK_BYTES = 512;
+
+    private static final long SLOW_CHUNK_INTERVAL_MS = 200;
+
+    private static final int SLOW_BODY_BYTES = 64 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:29308";
+        int streams = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int slowClients = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+        int durationSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        double maxP99Ms = args.length > 4 ? Double.parseDouble(args[4]) : 500;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        URI base = URI.create(baseUrl);
+
+        System.out.printf("准备 %d 条签署记录...%n", streams + slowClients);
+        List<JsonNode> records = generate(client, baseUrl, streams + slowClients);
+
+        // 1. SSE长连接
+        AtomicInteger streamsConnected = new AtomicInteger();
+        List<CompletableFuture<?>> openStreams = new ArrayList<>();
+        for (JsonNode record : records.subList(0, streams)) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/sign/status/stream?signRecordId="
+                            + record.get("signRecordId").asText() + "&token=" + encode(record.get("token").asText())))
+                    .build();
+            openStreams.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                    .thenAccept(response -> response.body()
+                            .filter(line -> line.startsWith("event:"))
+                            .findFirst()
+                            .ifPresent(line -> streamsConnected.incrementAndGet())));
+        }
+
+        // 2. 慢速客户端
+        ExecutorService slowExecutor = Executors.newFixedThreadPool(Math.max(1, slowClients));
+        AtomicInteger slowCompleted = new AtomicInteger();
+        AtomicInteger slowFailed = new AtomicInteger();
+        for (JsonNode record : records.subList(streams, streams + slowClients)) {
+            slowExecutor.submit(() -> {
+                try {
+                    slowConfirm(base, record.get("token").asText());
+                    slowCompleted.incrementAndGet();
+                } catch (Exception e) {
+                    slowFailed.incrementAndGet();
+                }
+            });
+        }
+
+        // 3. 固定并发状态查询
+        JsonNode probe = records.get(0);
+        HttpRequest statusRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/api/sign/status?signRecordId="
+                        + probe.get("signRecordId").asText()))
+                .header("Authorization", probe.get("token").asText())
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        ExecutorService queryExecutor = Executors.newFixedThreadPool(QUERY_CONCURRENCY);
+        for (int i = 0; i < QUERY_CONCURRENCY; i++) {
+            queryExecutor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(statusRequest, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            completed.incrementAndGet();
+                            latencies.add(System.nanoTime() - start);
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        queryExecutor.shutdown();
+        queryExecutor.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS);
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.println("========== 压测结果 ==========");
+        System.out.printf("SSE长连接: %d/%d 已收到首个状态事件%n", streamsConnected.get(), streams);
+        System.out.printf("慢速客户端: %d 完成, %d 失败, %d 进行中%n",
+                slowCompleted.get(), slowFailed.get(), slowClients - slowCompleted.get() - slowFailed.get());
+        double p99 = percentile(sorted, 0.99);
+        System.out.printf("状态查询: %.1f req/s, 失败 %d, p50 %.1fms, p99 %.1fms%n",
+                completed.get() / (double) durationSeconds, failed.get(), percentile(sorted, 0.50), p99);
+
+        List<String> violations = new ArrayList<>();
+        if (streamsConnected.get() < streams) {
+            violations.add(String.format("%d条SSE连接未收到状态事件", streams - streamsConnected.get()));
+        }
+        if (failed.get() > 0 || completed.get() == 0) {
+            violations.add(String.format("状态查询失败%d次", failed.get()));
+        }
+        if (p99 > maxP99Ms) {
+            violations.add(String.format("状态查询p99 %.1fms 超过 %.1fms", p99, maxP99Ms));
+        }
+        System.out.println(violations.isEmpty() ? "结论: 通过" : "结论: 未通过 - " + String.join("; ", violations));
+
+        slowExecutor.shutdownNow();
+        openStreams.forEach(future -> future.cancel(true));
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    private static List<JsonNode> generate(HttpClient client, String baseUrl, int count) throws Exception {
+        StringBuilder entries = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                entries.append(',');
+            }
+            entries.append("{\"userId\":\"load-user-").append(i).append("\",\"fileId\":\"load-file\",\"metaCode\":\"LOAD\"}");
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/sign/url/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"projectId\":\"load-test\",\"entries\":[" + entries + "]}"))
+                .build();
+        JsonNode array = JacksonUtils.mapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        List<JsonNode> records = new ArrayList<>(count);
+        array.forEach(records::add);
+        return records;
+    }
+
+    /**
+     * 按固定间隔分块发送请求体，模拟弱网下的移动端上传
+     */
+    private static void slowConfirm(URI base, String token) throws Exception {
+        byte[] padding = new byte[SLOW_BODY_BYTES];
+        Arrays.fill(padding, (byte) 'A');
+        byte[] body = ("{\"signatureBase64\":\"data:image/png;base64,"
+                + new String(padding, StandardCharsets.US_ASCII) + "\"}").getBytes(StandardCharsets.US_ASCII);
+        String headers = "POST /api/sign/confirm HTTP/1.1\r\n"
+                + "Host: " + base.getHost() + "\r\n"
+                + "Authorization: " + token + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+
+        try (Socket socket = new Socket(base.getHost(), base.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(headers.getBytes(StandardCharsets.US_ASCII));
+            for (int offset = 0; offset < body.length; offset += SLOW_CHUNK_BYTES) {
+                out.write(body, offset, Math.min(SLOW_CHUNK_BYTES, body.length - offset));
+                out.flush();
+                Thread.sleep(SLOW_CHUNK_INTERVAL_MS);
+            }
+            InputStream in = socket.getInputStream();
+            in.readAllBytes();
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package com.qrsignature.benchmark;
+
+import com.qrsignature.QrSignatureApplication;
+import com.qrsignature.cache.SignCache;
+import com.qrsignature.controller.dto.SignConfirmRequest;
+import com.qrsignature.controller.vo.SignConfirmResponse;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.controller.vo.SignUrlResponse;
+import com.qrsignature.service.SignService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SignService端到端开销，使用临时目录下的文件型SQLite(WAL)，与生产配置一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignServiceBenchmark {
+
+    private Path dataDir;
+
+    private ConfigurableApplicationContext context;
+
+    private SignService signService;
+
+    private SignCache<SignStatusResponse> statusCache;
+
+    private String signRecordId;
+
+    private String signatureBase64;
+
+    private final AtomicLong userSequence = new AtomicLong();
+
+    @Setup
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("qrsignature-bench");
+        context = new SpringApplicationBuilder(QrSignatureApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:sqlite:" + dataDir.resolve("qrsignature.db")
+                                + "?journal_mode=WAL&synchronous=NORMAL&busy_timeout=5000",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.qrsignature=WARN",
+                        "logging.level.root=WARN")
+                .run();
+        signService = context.getBean(SignService.class);
+        statusCache = context.getBean("statusCache", SignCache.class);
+        signRecordId = signService.generateSignUrl(null, "bench-project", "bench-user", "bench-file", "BENCH").getSignRecordId();
+        signatureBase64 = JacksonUtilsBenchmark.sampleSignature();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(dataDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dataDir);
+    }
+
+    /**
+     * 每次为新用户生成签署URL，包含序号分配、记录写入与token缓存
+     */
+    @Benchmark
+    public SignUrlResponse generateSignUrl() {
+        return signService.generateSignUrl(null, "bench-project", "user-" + userSequence.incrementAndGet(),
+                "bench-file", "BENCH");
+    }
+
+    @Benchmark
+    public SignStatusResponse checkSignStatusCached() {
+        return signService.checkSignStatus(signRecordId);
+    }
+
+    /**
+     * 先清除状态缓存，走数据库投影查询
+     */
+    @Benchmark
+    public SignStatusResponse checkSignStatusUncached() {
+        statusCache.invalidate(signRecordId);
+        return signService.checkSignStatus(signRecordId);
+    }
+
+    /**
+     * 生成并确认一次签署，确认需要一条未签署的记录，因此两步合并计时
+     */
+    @Benchmark
+    public SignConfirmResponse generateAndConfirmSign() {
+        SignUrlResponse signUrl = signService.generateSignUrl(null, "bench-project",
+                "signer-" + userSequence.incrementAndGet(), "bench-file", "BENCH");
+        SignConfirmRequest request = new SignConfirmRequest();
+        request.setSignatureBase64(signatureBase64);
+        // 响应中的token带有"Bearer "前缀，与Controller一致去掉后传入
+        return signService.confirmSign(signUrl.getToken().substring(7), request);
+    }
+}
@@ -0,0 +1,83 @@
+package com.qrsignature.benchmark;
+
+import com.qrsignature.util.SignatureImageCompressor;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名图片压缩的单张耗时与节省字节数 - 输入与签署页面画布一致: 400x200、不按设备像素比放大(96DPI)、透明背景抗锯齿笔迹PNG
+ * 节省的字节数在setup中输出，不计入耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureImageCompressorBenchmark {
+
+    private static final int SOURCE_DPI = 96;
+
+    private static final long MAX_PIXELS = 8_000_000;
+
+    @Param({"1", "2"})
+    private int bits;
+
+    @Param({"200", "150"})
+    private int targetDpi;
+
+    private byte[] original;
+
+    @Setup
+    public void setup() throws IOException {
+        original = canvasPng(400, 200);
+        byte[] compressed = SignatureImageCompressor.compress(original, SOURCE_DPI, targetDpi, bits, 24, 4, MAX_PIXELS);
+        int compressedSize = compressed != null ? compressed.length : original.length;
+        System.out.printf("%nbits=%d targetDpi=%d 原图 %d 字节，压缩后 %d 字节，节省 %.1f%%%n",
+                bits, targetDpi, original.length, compressedSize,
+                100.0 * (original.length - compressedSize) / original.length);
+    }
+
+    private static byte[] canvasPng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.BLACK);
+        // 轨迹按1080x540生成后缩放到画布大小，笔宽约2像素
+        graphics.scale(width / 1080.0, height / 540.0);
+        graphics.setStroke(new BasicStroke(6, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        Random random = new Random(42);
+        for (int stroke = 0; stroke < 6; stroke++) {
+            Path2D path = new Path2D.Double();
+            double x = 180 + stroke * 120 + random.nextInt(60);
+            double y = 180 + random.nextInt(180);
+            path.moveTo(x, y);
+            for (int point = 0; point < 40; point++) {
+                x += random.nextGaussian() * 6 + 1.5;
+                y += random.nextGaussian() * 10;
+                path.lineTo(x, Math.max(120, Math.min(420, y)));
+            }
+            graphics.draw(path);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return SignatureImageCompressor.compress(original, SOURCE_DPI, targetDpi, bits, 24, 4, MAX_PIXELS);
+    }
+}
@@ -0,0 +1,107 @@
+package com.qrsignature.benchmark;
+
+import com.qrsignature.util.SignatureImageCompressor;
+import com.qrsignature.util.SignatureStrokes;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 笔迹格式的解码与栅格化耗时 - 输入为400x200画布上约60Hz采样的6个笔画
+ * setup中输出同一签名以笔迹格式与签署页面画布PNG(400x200，不按设备像素比放大)上传的字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureStrokesBenchmark {
+
+    private static final int SCALE = 4;
+
+    private static final int TARGET_DPI = 200;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        SignatureStrokes strokes = strokes(new Random(42));
+        encoded = strokes.encode();
+        byte[] canvasPng = canvasPng(strokes, 1);
+        System.out.printf("%n笔迹 %d 字节，画布PNG %d 字节，为PNG的 %.1f%%%n",
+                encoded.length, canvasPng.length, 100.0 * encoded.length / canvasPng.length);
+    }
+
+    private static SignatureStrokes strokes(Random random) {
+        List<SignatureStrokes.Stroke> strokes = new ArrayList<>();
+        int time = 0;
+        for (int s = 0; s < 6; s++) {
+            int points = 60;
+            int[] x = new int[points];
+            int[] y = new int[points];
+            int[] times = new int[points];
+            int[] pressure = new int[points];
+            double px = 60 + s * 50 + random.nextInt(20);
+            double py = 60 + random.nextInt(80);
+            for (int i = 0; i < points; i++) {
+                px += random.nextGaussian() * 1.5 + 0.6;
+                py = Math.max(20, Math.min(180, py + random.nextGaussian() * 3));
+                time += 16;
+                x[i] = (int) Math.round(px * SCALE);
+                y[i] = (int) Math.round(py * SCALE);
+                times[i] = time;
+                pressure[i] = 80 + random.nextInt(100);
+            }
+            time += 300;
+            strokes.add(new SignatureStrokes.Stroke(x, y, times, pressure));
+        }
+        return new SignatureStrokes(400, 200, SCALE, 2 * SCALE, strokes);
+    }
+
+    /**
+     * 与签署页面canvas.toBlob相同的透明背景PNG
+     */
+    private static byte[] canvasPng(SignatureStrokes strokes, int pixelRatio) throws IOException {
+        BufferedImage image = new BufferedImage(strokes.getWidth() * pixelRatio, strokes.getHeight() * pixelRatio,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.scale((double) pixelRatio / SCALE, (double) pixelRatio / SCALE);
+        graphics.setStroke(new BasicStroke(strokes.getLineWidth(), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        for (SignatureStrokes.Stroke stroke : strokes.getStrokes()) {
+            Path2D path = new Path2D.Double();
+            path.moveTo(stroke.getX()[0], stroke.getY()[0]);
+            for (int i = 1; i < stroke.size(); i++) {
+                path.lineTo(stroke.getX()[i], stroke.getY()[i]);
+            }
+            graphics.draw(path);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public SignatureStrokes decode() {
+        return SignatureStrokes.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] rasterize() {
+        BufferedImage canvas = SignatureStrokes.decode(encoded).render(TARGET_DPI / 96.0);
+        return SignatureImageCompressor.compress(canvas, TARGET_DPI, TARGET_DPI, 2, 24, 4);
+    }
+}
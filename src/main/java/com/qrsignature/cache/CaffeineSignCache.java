@@ -0,0 +1,131 @@
+package com.qrsignature.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 本地Caffeine缓存实现 - W-TinyLFU淘汰，按条目各自的有效期过期，容量按估算的内存占用限制
+ * 淘汰按原因记录为cache.removals，cause=SIZE说明容量不足以容纳仍有效的条目
+ */
+public class CaffeineSignCache<V> implements SignCache<V> {
+
+    private final String name;
+
+    private final Cache<String, V> cache;
+
+    private final SingleFlight<V> loading = new SingleFlight<>();
+
+    private final Map<RemovalCause, LongAdder> evictions = new EnumMap<>(RemovalCause.class);
+
+    /**
+     * @param ttl      条目的存活时间，写入和更新时重新计算
+     * @param maxBytes 所有条目估算占用的内存上限
+     * @param weigher  单个条目的估算字节数
+     */
+    public CaffeineSignCache(String name, BiFunction<String, V, Duration> ttl, long maxBytes, Weigher<String, V> weigher) {
+        this.name = name;
+        for (RemovalCause cause : RemovalCause.values()) {
+            if (cause.wasEvicted()) {
+                evictions.put(cause, new LongAdder());
+            }
+        }
+        this.cache = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, V>() {
+                    @Override
+                    public long expireAfterCreate(String key, V value, long currentTime) {
+                        return ttl.apply(key, value).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                        return ttl.apply(key, value).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .maximumWeight(maxBytes)
+                .weigher(weigher)
+                .evictionListener((String key, V value, RemovalCause cause) -> evictions.get(cause).increment())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public V getIfPresent(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public V get(String key, Callable<? extends V> loader) throws ExecutionException {
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        // 与GuavaSignCache一致，Caffeine的get(key, mappingFunction)加载期间会锁住哈希桶
+        try {
+            return loading.load(key, () -> {
+                V cached = cache.asMap().get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                V loaded = loader.call();
+                // 与GuavaSignCache一致，加载期间已写入的值优先
+                V existing = cache.asMap().putIfAbsent(key, loaded);
+                return existing != null ? existing : loaded;
+            });
+        } catch (RuntimeException e) {
+            throw new UncheckedExecutionException(e);
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    @Override
+    public Map<String, V> getAllPresent(Collection<String> keys) {
+        return cache.getAllPresent(keys);
+    }
+
+    @Override
+    public void put(String key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<String, ? extends V> values) {
+        cache.putAll(values);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+        evictions.forEach((cause, count) -> FunctionCounter.builder("cache.removals", count, LongAdder::sum)
+                .tag("cache", name).tag("cause", cause.name())
+                .description("缓存按原因淘汰的条目数")
+                .register(registry));
+    }
+}
@@ -0,0 +1,92 @@
+package com.qrsignature.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 本地Guava缓存实现，单节点部署时的默认实现
+ */
+public class GuavaSignCache<V> implements SignCache<V> {
+
+    private final String name;
+
+    private final Cache<String, V> cache;
+
+    private final SingleFlight<V> loading = new SingleFlight<>();
+
+    public GuavaSignCache(String name, Duration ttl, long maximumSize) {
+        this.name = name;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public V getIfPresent(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public V get(String key, Callable<? extends V> loader) throws ExecutionException {
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        // 同一key只有一个线程执行loader，且loader执行期间不持有锁
+        try {
+            return loading.load(key, () -> {
+                // asMap读取不计入命中统计，避免一次加载记为两次未命中
+                V cached = cache.asMap().get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                V loaded = loader.call();
+                // 加载期间其他线程已写入时以已写入的值为准，避免把加载前读取的旧值覆盖到新写入的状态上
+                V existing = cache.asMap().putIfAbsent(key, loaded);
+                return existing != null ? existing : loaded;
+            });
+        } catch (RuntimeException e) {
+            // 与Cache.get(key, loader)保持一致的异常语义
+            throw new UncheckedExecutionException(e);
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    @Override
+    public Map<String, V> getAllPresent(Collection<String> keys) {
+        return cache.getAllPresent(keys);
+    }
+
+    @Override
+    public void put(String key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<String, ? extends V> values) {
+        cache.putAll(values);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, cache, name);
+    }
+}
@@ -0,0 +1,236 @@
+package com.qrsignature.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.qrsignature.util.JacksonUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis共享缓存实现，多个节点共享token与状态数据
+ * 每个节点保留一份短时近缓存，写入或失效时通过Redis频道广播，其他节点收到后清除本地近缓存
+ */
+@Slf4j
+public class RedisSignCache<V> implements SignCache<V>, MessageListener {
+
+    private static final String KEY_PREFIX = "qrsignature:";
+
+    private static final String NODE_SEPARATOR = "|";
+
+    // 节点标识，忽略自身发出的失效广播
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final String name;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final TypeReference<V> valueType;
+
+    private final Duration ttl;
+
+    private final String channel;
+
+    private final Cache<String, V> nearCache;
+
+    // 近缓存未命中后Redis层的命中统计
+    private final LongAdder remoteHits = new LongAdder();
+
+    private final LongAdder remoteMisses = new LongAdder();
+
+    public RedisSignCache(String name, StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                          TypeReference<V> valueType, Duration ttl, Duration nearCacheTtl, long nearCacheSize) {
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.valueType = valueType;
+        this.ttl = ttl;
+        this.channel = KEY_PREFIX + name + ":invalidate";
+        this.nearCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(nearCacheTtl)
+                .maximumSize(nearCacheSize)
+                .recordStats()
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public V getIfPresent(String key) {
+        V value = nearCache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        value = deserialize(redisTemplate.opsForValue().get(redisKey(key)));
+        if (value != null) {
+            remoteHits.increment();
+            nearCache.put(key, value);
+        } else {
+            remoteMisses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public V get(String key, Callable<? extends V> loader) throws ExecutionException {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        try {
+            value = loader.call();
+        } catch (RuntimeException e) {
+            // 与Guava缓存保持一致的异常语义
+            throw new UncheckedExecutionException(e);
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        }
+        // SET NX写入：加载期间其他节点或线程已写入时以已写入的值为准，不覆盖新状态
+        Boolean stored = redisTemplate.opsForValue().setIfAbsent(redisKey(key), JacksonUtils.toJsonString(value), ttl);
+        if (!Boolean.TRUE.equals(stored)) {
+            V existing = deserialize(redisTemplate.opsForValue().get(redisKey(key)));
+            if (existing != null) {
+                value = existing;
+            }
+        }
+        nearCache.put(key, value);
+        return value;
+    }
+
+    @Override
+    public Map<String, V> getAllPresent(Collection<String> keys) {
+        Map<String, V> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            V value = nearCache.getIfPresent(key);
+            if (value != null) {
+                result.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // 未命中近缓存的key通过pipeline一次往返取回
+        List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : missing) {
+                connection.stringCommands().get(bytes(redisKey(key)));
+            }
+            return null;
+        });
+        for (int i = 0; i < missing.size(); i++) {
+            V value = deserialize((String) values.get(i));
+            if (value != null) {
+                remoteHits.increment();
+                nearCache.put(missing.get(i), value);
+                result.put(missing.get(i), value);
+            } else {
+                remoteMisses.increment();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, V value) {
+        redisTemplate.opsForValue().set(redisKey(key), JacksonUtils.toJsonString(value), ttl);
+        nearCache.put(key, value);
+        broadcast(key);
+    }
+
+    @Override
+    public void putAll(Map<String, ? extends V> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] channelBytes = bytes(channel);
+            for (Map.Entry<String, ? extends V> entry : values.entrySet()) {
+                connection.stringCommands().set(bytes(redisKey(entry.getKey())),
+                        bytes(JacksonUtils.toJsonString(entry.getValue())),
+                        Expiration.from(ttl), RedisStringCommands.SetOption.upsert());
+                connection.publish(channelBytes, bytes(nodeId + NODE_SEPARATOR + entry.getKey()));
+            }
+            return null;
+        });
+        nearCache.putAll(values);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        redisTemplate.delete(redisKey(key));
+        nearCache.invalidate(key);
+        broadcast(key);
+    }
+
+    /**
+     * 近缓存使用标准cache.*指标，Redis层命中情况单独记录为cache.remote.gets
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, nearCache, name, "layer", "near");
+        FunctionCounter.builder("cache.remote.gets", remoteHits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit")
+                .description("近缓存未命中后Redis命中次数")
+                .register(registry);
+        FunctionCounter.builder("cache.remote.gets", remoteMisses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss")
+                .description("近缓存未命中后Redis未命中次数")
+                .register(registry);
+    }
+
+    /**
+     * 接收其他节点的失效广播，清除本地近缓存
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(NODE_SEPARATOR);
+        if (index < 0 || body.substring(0, index).equals(nodeId)) {
+            return;
+        }
+        nearCache.invalidate(body.substring(index + 1));
+    }
+
+    private void broadcast(String key) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + NODE_SEPARATOR + key);
+        } catch (Exception e) {
+            // 广播失败时其他节点的近缓存依靠短时过期兜底
+            log.warn("缓存失效广播失败, cache={}, key={}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private V deserialize(String json) {
+        return json == null ? null : JacksonUtils.readJson(json, valueType);
+    }
+
+    private String redisKey(String key) {
+        return KEY_PREFIX + name + ":" + key;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.qrsignature.cache;
+
+import com.qrsignature.service.SignProgressTracker;
+import com.qrsignature.util.JacksonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 签署进度跨节点转发 - 进度计数保存在各节点内存中，本节点提交的计数变化经Redis频道广播，
+ * 其他节点收到后累加到各自的计数上，任一节点查询的进度都包含所有节点的创建、扫码与确认
+ */
+@Slf4j
+public class RedisSignProgressRelay implements MessageListener {
+
+    private static final String CHANNEL = "qrsignature:progress:publish";
+
+    private static final String NODE_SEPARATOR = "|";
+
+    // 节点标识，忽略自身发出的广播
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final SignProgressTracker signProgressTracker;
+
+    public RedisSignProgressRelay(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                  SignProgressTracker signProgressTracker) {
+        this.redisTemplate = redisTemplate;
+        this.signProgressTracker = signProgressTracker;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        signProgressTracker.setRelay(this::broadcast);
+    }
+
+    /**
+     * 接收其他节点的计数变化，累加到本节点的计数
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(NODE_SEPARATOR);
+        if (index < 0 || body.substring(0, index).equals(nodeId)) {
+            return;
+        }
+        SignProgressTracker.Change change = JacksonUtils.readJson(body.substring(index + 1), SignProgressTracker.Change.class);
+        if (change != null) {
+            signProgressTracker.apply(change);
+        }
+    }
+
+    private void broadcast(SignProgressTracker.Change change) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + NODE_SEPARATOR + JacksonUtils.toJsonString(change));
+        } catch (Exception e) {
+            // 广播失败时其他节点的进度少计本次变化，重启重建后恢复
+            log.warn("签署进度广播失败, projectId={}: {}", change.getProjectId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.qrsignature.cache;
+
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.service.SignStatusPublisher;
+import com.qrsignature.util.JacksonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 签署状态跨节点转发 - SSE连接只保存在建立连接的节点上，本节点发布的状态变更经Redis频道广播，
+ * 其他节点收到后推送给各自的订阅方，负载均衡无需会话粘滞
+ */
+@Slf4j
+public class RedisSignStatusRelay implements MessageListener {
+
+    private static final String CHANNEL = "qrsignature:status:publish";
+
+    private static final String NODE_SEPARATOR = "|";
+
+    // 节点标识，忽略自身发出的广播
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final SignStatusPublisher signStatusPublisher;
+
+    public RedisSignStatusRelay(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                SignStatusPublisher signStatusPublisher) {
+        this.redisTemplate = redisTemplate;
+        this.signStatusPublisher = signStatusPublisher;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        signStatusPublisher.setRelay(this::broadcast);
+    }
+
+    /**
+     * 接收其他节点的状态变更，推送给本节点的订阅方
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(NODE_SEPARATOR);
+        if (index < 0 || body.substring(0, index).equals(nodeId)) {
+            return;
+        }
+        signStatusPublisher.deliver(JacksonUtils.readJson(body.substring(index + 1), SignStatusResponse.class));
+    }
+
+    private void broadcast(SignStatusResponse response) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + NODE_SEPARATOR + JacksonUtils.toJsonString(response));
+        } catch (Exception e) {
+            // 广播失败时其他节点的订阅方收不到推送，客户端连接中断后回退为轮询
+            log.warn("签署状态广播失败, signRecordId={}: {}", response.getSignRecordId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.qrsignature.cache;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 签署缓存抽象 - 默认使用本地Guava缓存，多节点部署时切换为Redis共享缓存
+ * 作为MeterBinder注册命中/未命中/淘汰指标，标签cache为缓存名称
+ *
+ * @param <V> 缓存值类型
+ */
+public interface SignCache<V> extends MeterBinder {
+
+    V getIfPresent(String key);
+
+    /**
+     * 获取缓存，不存在时通过loader加载并写入缓存
+     */
+    V get(String key, Callable<? extends V> loader) throws ExecutionException;
+
+    /**
+     * 批量获取，仅返回命中的条目
+     */
+    Map<String, V> getAllPresent(Collection<String> keys);
+
+    void put(String key, V value);
+
+    void putAll(Map<String, ? extends V> values);
+
+    void invalidate(String key);
+}
@@ -0,0 +1,50 @@
+package com.qrsignature.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qrsignature.controller.vo.SignConfirmResponse;
+import com.qrsignature.service.SignService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 确认签署重放拦截 - 携带已完成的幂等键重试时，在读取请求体之前直接返回首次确认结果，
+ * 客户端使用Expect: 100-continue时签名数据不会被再次上传(100 Continue延迟到读取请求体时回复，见WebConfig)
+ */
+@Component
+public class ConfirmReplayInterceptor implements HandlerInterceptor {
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private SignService signService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        String authorization = request.getHeader("Authorization");
+        if (idempotencyKey == null || idempotencyKey.isEmpty()
+                || authorization == null || !authorization.startsWith("Bearer ")) {
+            return true;
+        }
+
+        SignConfirmResponse confirmed = signService.findConfirmedSign(authorization.substring(7), idempotencyKey);
+        if (confirmed == null) {
+            return true;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(REPLAYED_HEADER, "true");
+        objectMapper.writeValue(response.getOutputStream(), confirmed);
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package com.qrsignature.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qrsignature.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * 签署历史与项目看板鉴权 - 要求X-API-Key请求头与sign.history.api-key一致
+ * 签署token由无需认证的生成接口签发，只能用于签署本身，不能访问项目或用户的签署记录；未配置密钥时接口关闭
+ * <p>
+ * 浏览器直接下载导出文件时无法设置请求头，导出接口也接受token查询参数中的短期下载token，
+ * 下载token由持有API Key的调用方通过export-token接口获取，只能导出对应项目
+ */
+@Component
+public class HistoryApiKeyInterceptor implements HandlerInterceptor {
+
+    private static final String API_KEY_HEADER = "X-API-Key";
+
+    private static final String EXPORT_PATTERN = "/api/sign/history/projects/{projectId}/export";
+
+    @Value("${sign.history.api-key:}")
+    private String apiKey;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        if (apiKey.isEmpty()) {
+            reject(response, HttpServletResponse.SC_FORBIDDEN, "未配置sign.history.api-key，签署历史接口已关闭");
+            return false;
+        }
+        String downloadToken = request.getParameter("token");
+        if (downloadToken != null && EXPORT_PATTERN.equals(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))) {
+            return checkDownloadToken(request, response, downloadToken);
+        }
+        String provided = request.getHeader(API_KEY_HEADER);
+        // 按固定时间比较，不因前缀匹配长度泄露密钥
+        if (provided == null || !MessageDigest.isEqual(provided.getBytes(StandardCharsets.UTF_8),
+                apiKey.getBytes(StandardCharsets.UTF_8))) {
+            reject(response, HttpServletResponse.SC_UNAUTHORIZED, "无效的API Key");
+            return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean checkDownloadToken(HttpServletRequest request, HttpServletResponse response, String token) throws Exception {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        // 兼容携带Bearer前缀的token，未携带时原样使用
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        if (!jwtUtil.validateExportToken(token, variables.get("projectId"))) {
+            reject(response, HttpServletResponse.SC_UNAUTHORIZED, "无效或已过期的下载token");
+            return false;
+        }
+        return true;
+    }
+
+    private void reject(HttpServletResponse response, int status, String message) throws Exception {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "error", "认证失败",
+                "message", message
+        ));
+    }
+}
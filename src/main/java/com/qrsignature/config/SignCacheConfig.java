@@ -0,0 +1,207 @@
+package com.qrsignature.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.qrsignature.cache.CaffeineSignCache;
+import com.qrsignature.cache.GuavaSignCache;
+import com.qrsignature.cache.RedisSignCache;
+import com.qrsignature.cache.RedisSignProgressRelay;
+import com.qrsignature.cache.RedisSignStatusRelay;
+import com.qrsignature.cache.SignCache;
+import com.qrsignature.controller.vo.SignConfirmResponse;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.controller.vo.UserSignaturesResponse;
+import com.qrsignature.service.SignProgressTracker;
+import com.qrsignature.service.SignStatusPublisher;
+import com.qrsignature.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * 签署缓存配置 - sign.cache.type=local 使用本地Guava缓存(默认)，redis 使用Redis共享缓存并跨节点转发签署状态推送
+ */
+@Configuration
+public class SignCacheConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "sign.cache.type", havingValue = "local", matchIfMissing = true)
+    static class LocalCacheConfig {
+
+        @Value("${sign.cache.token-max-weight:64MB}")
+        private DataSize tokenMaxWeight;
+
+        @Value("${sign.cache.status-ttl:5m}")
+        private Duration statusTtl;
+
+        @Value("${sign.cache.status-max-size:10000}")
+        private long statusMaxSize;
+
+        @Value("${sign.cache.confirm-ttl:15m}")
+        private Duration confirmTtl;
+
+        @Value("${sign.cache.confirm-max-size:1000}")
+        private long confirmMaxSize;
+
+        @Value("${sign.cache.user-signature-ttl:30m}")
+        private Duration userSignatureTtl;
+
+        @Value("${sign.cache.user-signature-max-size:10000}")
+        private long userSignatureMaxSize;
+
+        @Value("${sign.cache.revoked-token-max-weight:16MB}")
+        private DataSize revokedTokenMaxWeight;
+
+        /**
+         * token缓存 - 每个条目在token自身的exp时刻过期，容量按估算内存占用限制而非条目数
+         */
+        @Bean
+        public SignCache<Map<String, Object>> tokenCache(JwtUtil jwtUtil) {
+            return new CaffeineSignCache<>("token", (token, data) -> tokenTtl(jwtUtil, token),
+                    tokenMaxWeight.toBytes(), (token, data) -> tokenWeight(token, data));
+        }
+
+        @Bean
+        public SignCache<SignStatusResponse> statusCache() {
+            return new GuavaSignCache<>("status", statusTtl, statusMaxSize);
+        }
+
+        @Bean
+        public SignCache<SignConfirmResponse> confirmCache() {
+            return new GuavaSignCache<>("confirm", confirmTtl, confirmMaxSize);
+        }
+
+        @Bean
+        public SignCache<UserSignaturesResponse> userSignatureCache() {
+            return new GuavaSignCache<>("userSignature", userSignatureTtl, userSignatureMaxSize);
+        }
+
+        /**
+         * 无状态模式下已使用的签署记录ID -> token过期时刻(毫秒)，保留到token过期为止
+         */
+        @Bean
+        public SignCache<Long> revokedTokenCache() {
+            return new CaffeineSignCache<>("revokedToken",
+                    (signRecordId, expiresAt) -> Duration.ofMillis(Math.max(0, expiresAt - System.currentTimeMillis())),
+                    revokedTokenMaxWeight.toBytes(), (signRecordId, expiresAt) -> 64 + signRecordId.length() * 2);
+        }
+    }
+
+    private static Duration tokenTtl(JwtUtil jwtUtil, String token) {
+        try {
+            Duration ttl = Duration.between(Instant.now(), jwtUtil.extractExpiration(token).toInstant());
+            return ttl.isNegative() ? Duration.ZERO : ttl;
+        } catch (JwtException | IllegalArgumentException e) {
+            // 无效或已过期的token不保留
+            return Duration.ZERO;
+        }
+    }
+
+    /**
+     * 估算token缓存条目占用的字节数：字符串按每字符2字节，另加对象头与哈希表节点开销
+     */
+    private static int tokenWeight(String token, Map<String, Object> data) {
+        int weight = 64 + token.length() * 2;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            weight += 64 + entry.getKey().length() * 2;
+            if (entry.getValue() != null) {
+                weight += String.valueOf(entry.getValue()).length() * 2;
+            }
+        }
+        return weight;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "sign.cache.type", havingValue = "redis")
+    static class RedisCacheConfig {
+
+        @Value("${sign.cache.token-ttl:15m}")
+        private Duration tokenTtl;
+
+        @Value("${sign.cache.status-ttl:5m}")
+        private Duration statusTtl;
+
+        @Value("${sign.cache.confirm-ttl:15m}")
+        private Duration confirmTtl;
+
+        @Value("${sign.cache.user-signature-ttl:30m}")
+        private Duration userSignatureTtl;
+
+        @Value("${sign.cache.near-cache-ttl:10s}")
+        private Duration nearCacheTtl;
+
+        @Value("${sign.cache.near-cache-max-size:10000}")
+        private long nearCacheMaxSize;
+
+        @Bean
+        public RedisMessageListenerContainer signCacheListenerContainer(RedisConnectionFactory connectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            return container;
+        }
+
+        /**
+         * SSE连接只在建立连接的节点上，状态变更经Redis频道转发给其他节点的订阅方
+         */
+        @Bean
+        public RedisSignStatusRelay signStatusRelay(StringRedisTemplate redisTemplate,
+                                                    RedisMessageListenerContainer signCacheListenerContainer,
+                                                    SignStatusPublisher signStatusPublisher) {
+            return new RedisSignStatusRelay(redisTemplate, signCacheListenerContainer, signStatusPublisher);
+        }
+
+        /**
+         * 签署进度计数在各节点内存中，计数变化经Redis频道转发给其他节点
+         */
+        @Bean
+        public RedisSignProgressRelay signProgressRelay(StringRedisTemplate redisTemplate,
+                                                        RedisMessageListenerContainer signCacheListenerContainer,
+                                                        SignProgressTracker signProgressTracker) {
+            return new RedisSignProgressRelay(redisTemplate, signCacheListenerContainer, signProgressTracker);
+        }
+
+        @Bean
+        public SignCache<Map<String, Object>> tokenCache(StringRedisTemplate redisTemplate,
+                                                         RedisMessageListenerContainer signCacheListenerContainer) {
+            return new RedisSignCache<>("token", redisTemplate, signCacheListenerContainer,
+                    new TypeReference<>() {}, tokenTtl, nearCacheTtl, nearCacheMaxSize);
+        }
+
+        @Bean
+        public SignCache<SignStatusResponse> statusCache(StringRedisTemplate redisTemplate,
+                                                         RedisMessageListenerContainer signCacheListenerContainer) {
+            return new RedisSignCache<>("status", redisTemplate, signCacheListenerContainer,
+                    new TypeReference<>() {}, statusTtl, nearCacheTtl, nearCacheMaxSize);
+        }
+
+        @Bean
+        public SignCache<SignConfirmResponse> confirmCache(StringRedisTemplate redisTemplate,
+                                                           RedisMessageListenerContainer signCacheListenerContainer) {
+            return new RedisSignCache<>("confirm", redisTemplate, signCacheListenerContainer,
+                    new TypeReference<>() {}, confirmTtl, nearCacheTtl, nearCacheMaxSize);
+        }
+
+        @Bean
+        public SignCache<UserSignaturesResponse> userSignatureCache(StringRedisTemplate redisTemplate,
+                                                                    RedisMessageListenerContainer signCacheListenerContainer) {
+            return new RedisSignCache<>("userSignature", redisTemplate, signCacheListenerContainer,
+                    new TypeReference<>() {}, userSignatureTtl, nearCacheTtl, nearCacheMaxSize);
+        }
+
+        @Bean
+        public SignCache<Long> revokedTokenCache(StringRedisTemplate redisTemplate,
+                                                 RedisMessageListenerContainer signCacheListenerContainer) {
+            return new RedisSignCache<>("revokedToken", redisTemplate, signCacheListenerContainer,
+                    new TypeReference<>() {}, tokenTtl, nearCacheTtl, nearCacheMaxSize);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.qrsignature.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.util.List;
+
+/**
+ * 指纹静态资源解析 - 从StaticAssets内存中取资源，客户端支持gzip时直接返回预压缩内容
+ */
+public class StaticAssetResolver implements ResourceResolver {
+
+    private final StaticAssets staticAssets;
+
+    public StaticAssetResolver(StaticAssets staticAssets) {
+        this.staticAssets = staticAssets;
+    }
+
+    @Override
+    public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        StaticAssets.Asset asset = staticAssets.findAsset(requestPath);
+        if (asset == null) {
+            return null;
+        }
+        return new AssetResource(asset, request != null && acceptsGzip(request));
+    }
+
+    @Override
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return staticAssets.findAsset(resourcePath) != null ? resourcePath : null;
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    /**
+     * 内存中的资源，gzip为true时内容为预压缩数据
+     */
+    @Getter
+    static class AssetResource extends ByteArrayResource implements HttpResource {
+
+        private final StaticAssets.Asset asset;
+
+        private final boolean gzip;
+
+        AssetResource(StaticAssets.Asset asset, boolean gzip) {
+            super(gzip ? asset.getGzip() : asset.getData());
+            this.asset = asset;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public String getFilename() {
+            return asset.getName();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(asset.getContentType());
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return headers;
+        }
+    }
+}
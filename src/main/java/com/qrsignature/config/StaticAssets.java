@@ -0,0 +1,155 @@
+package com.qrsignature.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源预处理 - 启动时一次性读取static目录下的页面与脚本，脚本/样式按内容哈希生成带指纹的文件名，
+ * 页面中的引用改写为指纹地址，所有资源预先gzip压缩后常驻内存
+ */
+@Slf4j
+@Component
+public class StaticAssets {
+
+    public static final String ASSET_PATH = "/assets/";
+
+    private static final String STATIC_LOCATION = "classpath:/static/";
+
+    // 页面中引用本地脚本/样式的属性，如 src="app.js"
+    private static final Pattern LOCAL_REFERENCE = Pattern.compile("(src|href)=\"([\\w.-]+\\.(?:js|css))\"");
+
+    private static final int FINGERPRINT_LENGTH = 12;
+
+    // 指纹文件名 -> 资源，如 app.3f2a1b4c5d6e.js
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    // 原文件名 -> 指纹文件名
+    private final Map<String, String> fingerprints = new HashMap<>();
+
+    // 页面文件名 -> 改写后的页面
+    private final Map<String, Asset> pages = new HashMap<>();
+
+    @PostConstruct
+    public void load() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        for (String pattern : List.of("*.js", "*.css")) {
+            for (Resource resource : resolver.getResources(STATIC_LOCATION + pattern)) {
+                byte[] data = readAll(resource);
+                String name = resource.getFilename();
+                String fingerprint = sha256(data).substring(0, FINGERPRINT_LENGTH);
+                int dot = name.lastIndexOf('.');
+                String fingerprinted = name.substring(0, dot) + "." + fingerprint + name.substring(dot);
+                fingerprints.put(name, fingerprinted);
+                assets.put(fingerprinted, asset(name, data, fingerprint, List.of()));
+            }
+        }
+
+        for (Resource resource : resolver.getResources(STATIC_LOCATION + "*.html")) {
+            String html = new String(readAll(resource), StandardCharsets.UTF_8);
+            List<String> preloads = new ArrayList<>();
+            Matcher matcher = LOCAL_REFERENCE.matcher(html);
+            StringBuilder rewritten = new StringBuilder(html.length());
+            while (matcher.find()) {
+                String fingerprinted = fingerprints.get(matcher.group(2));
+                if (fingerprinted == null) {
+                    continue;
+                }
+                String url = ASSET_PATH + fingerprinted;
+                if (fingerprinted.endsWith(".js")) {
+                    preloads.add("<" + url + ">; rel=preload; as=script");
+                } else {
+                    preloads.add("<" + url + ">; rel=preload; as=style");
+                }
+                matcher.appendReplacement(rewritten, Matcher.quoteReplacement(matcher.group(1) + "=\"" + url + "\""));
+            }
+            matcher.appendTail(rewritten);
+
+            byte[] data = rewritten.toString().getBytes(StandardCharsets.UTF_8);
+            pages.put(resource.getFilename(), asset(resource.getFilename(), data, sha256(data), preloads));
+        }
+        log.info("已加载{}个指纹静态资源与{}个页面", assets.size(), pages.size());
+    }
+
+    /**
+     * 按指纹文件名查找资源
+     */
+    public Asset findAsset(String fingerprintedName) {
+        return assets.get(fingerprintedName);
+    }
+
+    /**
+     * 按页面文件名查找改写后的页面
+     */
+    public Asset findPage(String name) {
+        return pages.get(name);
+    }
+
+    private static Asset asset(String name, byte[] data, String hash, List<String> preloads) throws IOException {
+        MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (mediaType.getType().equals("text") || name.endsWith(".js")) {
+            mediaType = new MediaType(mediaType, StandardCharsets.UTF_8);
+        }
+        return new Asset(name, data, gzip(data), mediaType, hash, List.copyOf(preloads));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Asset {
+        private final String name;
+        private final byte[] data;
+        private final byte[] gzip;
+        private final MediaType contentType;
+        private final String etag;
+        // 页面引用的指纹资源，作为Link: rel=preload响应头提前下发
+        private final List<String> preloads;
+    }
+}
@@ -1,15 +1,32 @@
 package com.qrsignature.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.time.Duration;
+
 /**
- * Web配置类 - 处理CORS跨域请求
+ * Web配置类 - 处理CORS跨域请求，注册拦截器与指纹静态资源
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private ConfirmReplayInterceptor confirmReplayInterceptor;
+
+    @Autowired
+    private HistoryApiKeyInterceptor historyApiKeyInterceptor;
+
+    @Autowired
+    private StaticAssets staticAssets;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -24,4 +41,36 @@ public class WebConfig implements WebMvcConfigurer {
 //                .allowCredentials(true)
                 .maxAge(3600); // 1小时
     }
+
+    /**
+     * 指纹静态资源 - 内容变化即地址变化，可永久缓存
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(StaticAssets.ASSET_PATH + "**")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .setUseLastModified(false)
+                // 压缩与未压缩内容使用不同的ETag，与PageController一致
+                .setEtagGenerator(resource -> resource instanceof StaticAssetResolver.AssetResource assetResource
+                        ? assetResource.getAsset().getEtag() + (assetResource.isGzip() ? "-gzip" : "") : null)
+                .resourceChain(false)
+                .addResolver(new StaticAssetResolver(staticAssets));
+    }
+
+    /**
+     * 收到Expect: 100-continue时延迟到首次读取请求体才回复100 Continue，
+     * 幂等重放拦截在读取请求体之前返回，客户端不会上传签名数据；Tomcat默认在请求进入应用前立即回复
+     */
+    @Bean
+    public TomcatConnectorCustomizer continueOnReadCustomizer() {
+        return connector -> connector.setProperty("continueResponseTiming", "onRead");
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(confirmReplayInterceptor)
+                .addPathPatterns("/api/sign/confirm");
+        registry.addInterceptor(historyApiKeyInterceptor)
+                .addPathPatterns("/api/sign/history/**");
+    }
 }
\ No newline at end of file
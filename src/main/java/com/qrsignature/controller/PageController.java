@@ -1,22 +1,39 @@
 package com.qrsignature.controller;
 
+import com.qrsignature.config.StaticAssets;
+import com.qrsignature.service.SignService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * @author Administrator
  * 静态页面控制器
  */
+@Slf4j
 @Controller
 public class PageController {
 
+    @Autowired
+    private SignService signService;
+
+    @Autowired
+    private StaticAssets staticAssets;
+
     /**
      * 主页
      */
     @GetMapping("/")
-    public String index() {
-        return "forward:/index.html";
+    public ResponseEntity<byte[]> index(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                        WebRequest webRequest) {
+        return page("index.html", acceptEncoding, webRequest);
     }
 
     /**
@@ -29,17 +46,48 @@ public class PageController {
 
     /**
      * 签名页面 - 支持token参数 (二维码直接跳转)
-     * 这个路由会生成一个包含token的完整签名页面URL
+     * 直接返回签名页，不再重定向，页面从URL参数中读取token
      */
     @GetMapping("/sign")
-    public String signWithToken(@RequestParam(name = "token", required = false) String token) {
-        if (token != null && !token.isEmpty()) {
-            // 如果有token参数，重定向到带token的签名页面
-            return "redirect:/signature.html?token=" + token;
-        } else {
-            // 如果没有token参数，重定向到基本签名页面
-            return "redirect:/signature.html";
+    public ResponseEntity<byte[]> signWithToken(@RequestParam(name = "token", required = false) String token,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                WebRequest webRequest) {
+        // 二维码被打开即记录扫码，失败不影响页面打开，token错误由签名页提示
+        if (token != null && token.startsWith("Bearer ")) {
+            try {
+                signService.markScanned(token.substring(7));
+            } catch (Exception e) {
+                log.debug("记录扫码失败: {}", e.getMessage());
+            }
+        }
+        return page("signing.html", acceptEncoding, webRequest);
+    }
+
+    /**
+     * 返回内存中预处理的页面，页面引用的指纹资源通过Link响应头预加载
+     * 页面本身地址不变，每次使用ETag协商
+     */
+    private ResponseEntity<byte[]> page(String name, String acceptEncoding, WebRequest webRequest) {
+        StaticAssets.Asset page = staticAssets.findPage(name);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // 压缩与未压缩内容使用不同的ETag
+        String etag = "\"" + page.getEtag() + (gzip ? "-gzip" : "") + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(page.getContentType())
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!page.getPreloads().isEmpty()) {
+            response.header(HttpHeaders.LINK, page.getPreloads().toArray(String[]::new));
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(gzip ? page.getGzip() : page.getData());
     }
 
     /**
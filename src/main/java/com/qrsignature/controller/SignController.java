@@ -2,18 +2,43 @@ package com.qrsignature.controller;
 
 import com.qrsignature.controller.dto.SignConfirmRequest;
 import com.qrsignature.controller.dto.SignStatusRequest;
+import com.qrsignature.controller.dto.SignUrlBatchRequest;
 import com.qrsignature.controller.dto.SignUrlRequest;
 import com.qrsignature.controller.vo.SignConfirmResponse;
 import com.qrsignature.controller.vo.SignStatusResponse;
 import com.qrsignature.controller.vo.SignUrlResponse;
 import com.qrsignature.controller.vo.UserSignaturesResponse;
+import com.qrsignature.entity.SignatureImage;
+import com.qrsignature.service.QrCodeService;
 import com.qrsignature.service.SignService;
+import com.qrsignature.service.SignStampService;
+import com.qrsignature.util.DataUrlImage;
+import com.qrsignature.util.JacksonUtils;
 import com.qrsignature.util.JwtUtil;
+import com.qrsignature.util.SignatureStrokes;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Administrator
@@ -23,12 +48,26 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class SignController {
 
+    private static final String STREAM_ERROR_EVENT = "sign-error";
+
+    private static final String CONTENT_TYPE_OPTIONS = "X-Content-Type-Options";
+
     @Autowired
     private SignService signService;
 
+    @Autowired
+    private SignStampService signStampService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Value("${sign.batch.max-size:5000}")
+    private int batchMaxSize;
+
+    // 二进制上传签名图片的大小上限，multipart上传由spring.servlet.multipart.max-file-size限制
+    @Value("${sign.upload.max-signature-size:2MB}")
+    private DataSize maxSignatureSize;
+
     @PostMapping("/url")
     public ResponseEntity<?> generateSignUrl(@RequestHeader(value = "Authorization", required = false) String authorization,
                                              @RequestBody SignUrlRequest request) {
@@ -49,6 +88,43 @@ public class SignController {
         }
     }
 
+    /**
+     * 批量生成签署URL - 同一项目下多个(用户, 文件)一次生成，全部签署记录写入成功后才返回结果，顺序与请求一致
+     */
+    @PostMapping("/url/batch")
+    public ResponseEntity<?> generateSignUrls(@RequestBody SignUrlBatchRequest request) {
+        List<SignUrlBatchRequest.Entry> entries = request.getEntries();
+        if (!StringUtils.hasText(request.getProjectId()) || entries == null || entries.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "参数错误",
+                    "message", "projectId和entries是必需参数"
+            ));
+        }
+        if (entries.size() > batchMaxSize) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "参数错误",
+                    "message", "单次最多生成" + batchMaxSize + "条"
+            ));
+        }
+        for (SignUrlBatchRequest.Entry entry : entries) {
+            if (entry == null || !StringUtils.hasText(entry.getUserId()) || !StringUtils.hasText(entry.getFileId())) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "参数错误",
+                        "message", "每条记录的userId和fileId是必需参数"
+                ));
+            }
+        }
+
+        try {
+            return ResponseEntity.ok(signService.generateSignUrls(request.getProjectId(), entries));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "生成签署URL失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
     @GetMapping("/status")
     public ResponseEntity<?> checkSignStatus(@RequestHeader(value = "Authorization", required = false) String authorization,
                                              @RequestParam String signRecordId) {
@@ -76,11 +152,212 @@ public class SignController {
         }
     }
 
+    /**
+     * 签署状态推送 - SSE长连接，状态变更时服务端主动推送
+     * EventSource无法设置请求头，因此同时支持通过token参数传递
+     */
+    @GetMapping("/status/stream")
+    public ResponseEntity<SseEmitter> streamSignStatus(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                       @RequestParam(name = "token", required = false) String tokenParam,
+                                                       @RequestParam String signRecordId) {
+        try {
+            String token = resolveToken(authorization, tokenParam);
+            if (token == null) {
+                return streamError("参数错误", "未传入token");
+            }
+            if (!jwtUtil.validateToken(token)) {
+                return streamError("认证失败", "无效的Token");
+            }
+            return ResponseEntity.ok(signService.subscribeSignStatus(signRecordId));
+        } catch (Exception e) {
+            return streamError("订阅签署状态失败", e.getMessage());
+        }
+    }
+
+    /**
+     * EventSource不读取非200响应的内容，且error为其内置事件名，错误以200响应中的sign-error事件返回
+     */
+    private ResponseEntity<SseEmitter> streamError(String error, String message) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name(STREAM_ERROR_EVENT).data(Map.of(
+                    "error", error,
+                    "message", String.valueOf(message)
+            )));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * 签名图片 - 按需获取已签署记录的签名图片，图片ID即内容哈希，作为ETag支持条件请求
+     * img标签无法设置请求头，因此同时支持通过token参数传递
+     */
+    @GetMapping("/signature-image")
+    public ResponseEntity<?> getSignatureImage(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                               @RequestParam(name = "token", required = false) String tokenParam,
+                                               @RequestParam String signRecordId,
+                                               WebRequest webRequest) {
+        try {
+            String token = resolveToken(authorization, tokenParam);
+            if (token == null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "参数错误",
+                        "message", "未传入token"
+                ));
+            }
+            if (!jwtUtil.validateToken(token)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "认证失败",
+                        "message", "无效的Token"
+                ));
+            }
+
+            String signatureImageId = signService.checkSignStatus(signRecordId).getSignatureImageId();
+            if (signatureImageId == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "error", "获取签名图片失败",
+                        "message", "该签署记录尚未签名"
+                ));
+            }
+            // If-None-Match命中时直接返回304，不读取图片
+            if (webRequest.checkNotModified("\"" + signatureImageId + "\"")) {
+                return null;
+            }
+
+            return imageResponse(signatureImageId, signService.getSignatureImage(signatureImageId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "获取签名图片失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 盖章后的文件 - 签署记录的签名盖章完成后获取，文件ID即内容哈希，作为ETag支持条件请求
+     */
+    @GetMapping("/stamped-document")
+    public ResponseEntity<?> getStampedDocument(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                @RequestParam(name = "token", required = false) String tokenParam,
+                                                @RequestParam String signRecordId,
+                                                WebRequest webRequest) {
+        try {
+            String token = resolveToken(authorization, tokenParam);
+            if (token == null || !jwtUtil.validateToken(token)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "认证失败",
+                        "message", "无效的Token"
+                ));
+            }
+
+            String documentId = signService.checkSignStatus(signRecordId).getStampedDocumentId();
+            if (documentId == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "error", "获取盖章文件失败",
+                        "message", "该签署记录尚未完成盖章"
+                ));
+            }
+            if (webRequest.checkNotModified("\"" + documentId + "\"")) {
+                return null;
+            }
+
+            // 以文件资源响应，由容器分块读取输出，不整体载入内存
+            FileSystemResource document = signStampService.findStampedDocument(documentId)
+                    .map(FileSystemResource::new)
+                    .orElseThrow(() -> new RuntimeException("盖章文件不存在"));
+            return ResponseEntity.ok()
+                    .eTag(documentId)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                    .contentType(documentId.endsWith(".png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG)
+                    .header(CONTENT_TYPE_OPTIONS, "nosniff")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().build().toString())
+                    .body(document);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "获取盖章文件失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 签名图片响应 - 禁止浏览器嗅探内容类型，白名单外的历史数据以application/octet-stream返回，不会按HTML等类型执行
+     */
+    private static ResponseEntity<ByteArrayResource> imageResponse(String etag, SignatureImage image) {
+        MediaType contentType = DataUrlImage.isAllowedContentType(image.getContentType())
+                ? MediaType.parseMediaType(image.getContentType()) : MediaType.APPLICATION_OCTET_STREAM;
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                .contentType(contentType)
+                .contentLength(image.getSize())
+                .header(CONTENT_TYPE_OPTIONS, "nosniff")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().build().toString())
+                .body(new ByteArrayResource(image.getData()));
+    }
+
+    /**
+     * 签署二维码图片 - 服务端生成PNG/SVG，供打印、自助终端等无浏览器场景直接使用
+     */
+    @GetMapping("/qr/{signRecordId}")
+    public ResponseEntity<?> getQrCode(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                       @RequestParam(name = "token", required = false) String tokenParam,
+                                       @PathVariable String signRecordId,
+                                       @RequestParam(name = "format", defaultValue = "png") String format,
+                                       @RequestParam(name = "size", required = false) Integer size,
+                                       WebRequest webRequest) {
+        try {
+            String token = resolveToken(authorization, tokenParam);
+            if (token == null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "参数错误",
+                        "message", "未传入token"
+                ));
+            }
+            if (!jwtUtil.validateToken(token)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "认证失败",
+                        "message", "无效的Token"
+                ));
+            }
+
+            QrCodeService.QrCodeImage image = signService.getQrCode(token, signRecordId, format, size);
+            if (webRequest.checkNotModified("\"" + image.getEtag() + "\"")) {
+                return null;
+            }
+            // 二维码在token有效期内不变
+            long maxAge = Math.max(0, jwtUtil.extractExpiration(token).getTime() - System.currentTimeMillis());
+            return ResponseEntity.ok()
+                    .eTag(image.getEtag())
+                    .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.MILLISECONDS).cachePrivate())
+                    .contentType(MediaType.parseMediaType(image.getContentType()))
+                    .body(image.getData());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "生成二维码失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 用户历史签名列表 - 只返回签名ID与图片ID，列表ETag随保存新签名变化，未变化时返回304
+     */
     @GetMapping("/user-signatures")
-    public ResponseEntity<?> getUserSignatures(@RequestParam String userId) {
+    public ResponseEntity<?> getUserSignatures(@RequestParam String userId, WebRequest webRequest) {
         try {
             UserSignaturesResponse result = signService.getUserSignatures(userId);
-            return ResponseEntity.ok(result);
+            String etag = result.etag();
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                     "error", "获取用户签名失败",
@@ -89,6 +366,42 @@ public class SignController {
         }
     }
 
+    /**
+     * 历史签名图片 - 选中历史签名时才获取原图，列表展示使用thumbnail=true的缩略图
+     * 图片ID即内容哈希，作为ETag支持条件请求
+     */
+    @GetMapping("/user-signatures/{userSignatureId}/image")
+    public ResponseEntity<?> getUserSignatureImage(@PathVariable String userSignatureId,
+                                                   @RequestParam String userId,
+                                                   @RequestParam(defaultValue = "false") boolean thumbnail,
+                                                   WebRequest webRequest) {
+        try {
+            UserSignaturesResponse.SignatureInfo signature = signService.findUserSignature(userId, userSignatureId)
+                    .orElse(null);
+            if (signature == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "error", "获取历史签名图片失败",
+                        "message", "历史签名不存在"
+                ));
+            }
+            String etag = signature.getSignatureImageId() + (thumbnail ? "-thumb" : "");
+            // If-None-Match命中时直接返回304，不读取图片
+            if (webRequest.checkNotModified("\"" + etag + "\"")) {
+                return null;
+            }
+
+            SignatureImage image = thumbnail
+                    ? signService.getSignatureThumbnail(signature.getSignatureImageId())
+                    : signService.getSignatureImage(signature.getSignatureImageId());
+            return imageResponse(etag, image);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "获取历史签名图片失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
     @GetMapping("/check-signature-exists")
     public ResponseEntity<?> checkSignatureExists(@RequestParam String userId) {
         try {
@@ -106,8 +419,32 @@ public class SignController {
         }
     }
 
+    /**
+     * 记录扫码 - 签名页打开时调用，签署记录由未扫描变为已扫描未签署
+     */
+    @PostMapping("/scan")
+    public ResponseEntity<?> markScanned(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                         @RequestParam(name = "token", required = false) String tokenParam) {
+        try {
+            String token = resolveToken(authorization, tokenParam);
+            if (token == null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "参数错误",
+                        "message", "未传入token"
+                ));
+            }
+            return ResponseEntity.ok(signService.markScanned(token));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "记录扫码失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
     @PostMapping("/confirm")
     public ResponseEntity<?> confirmSign(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                        @RequestBody SignConfirmRequest request) {
         try {
             String token = null;
@@ -127,14 +464,15 @@ public class SignController {
                 ));
             }
 
-            if (request.getSignatureBase64() == null) {
+            // 使用历史签名时由服务端取图，无需传入签名图片
+            if (request.getSignatureBase64() == null && !StringUtils.hasText(request.getUserSignatureId())) {
                 return ResponseEntity.badRequest().body(Map.of(
                         "error", "参数错误",
                         "message", "signatureBase64是必需参数"
                 ));
             }
 
-            SignConfirmResponse result = signService.confirmSign(token, request);
+            SignConfirmResponse result = signService.confirmSign(token, request, idempotencyKey);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -143,4 +481,110 @@ public class SignController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 确认签名 - 二进制上传，请求体为签名图片原始字节(image/png等)或笔迹数据，其余参数通过查询参数传递
+     * 图片字节直接读入存储用的数组，不经过Base64字符串，超过大小限制时读取中途即拒绝
+     */
+    @PostMapping(value = "/confirm", consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE, SignatureStrokes.CONTENT_TYPE})
+    public ResponseEntity<?> confirmSignBinary(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                             @RequestParam(required = false) Boolean saveForReuse,
+                                             @RequestParam(required = false) String userSignatureId,
+                                             HttpServletRequest httpRequest) {
+        try {
+            String token = resolveToken(authorization, null);
+            if (token == null || !jwtUtil.validateToken(token)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "认证失败",
+                        "message", "无效的Token"
+                ));
+            }
+
+            SignConfirmRequest request = new SignConfirmRequest();
+            request.setSaveForReuse(saveForReuse);
+            request.setUserSignatureId(userSignatureId);
+            if (!StringUtils.hasText(userSignatureId)) {
+                request.setSignatureImage(DataUrlImage.read(httpRequest.getInputStream(), httpRequest.getContentType(),
+                        httpRequest.getContentLengthLong(), maxSignatureSize.toBytes()));
+            }
+
+            return ResponseEntity.ok(signService.confirmSign(token, request, idempotencyKey));
+        } catch (MaxUploadSizeExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "签署确认失败",
+                    "message", String.valueOf(e.getMessage())
+            ));
+        }
+    }
+
+    /**
+     * 确认签名 - multipart上传，签名图片为signature文件字段
+     */
+    @PostMapping(value = "/confirm", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> confirmSignMultipart(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                @RequestParam(name = "signature", required = false) MultipartFile signature,
+                                                @RequestParam(required = false) Boolean saveForReuse,
+                                                @RequestParam(required = false) String userSignatureId) {
+        try {
+            String token = resolveToken(authorization, null);
+            if (token == null || !jwtUtil.validateToken(token)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "认证失败",
+                        "message", "无效的Token"
+                ));
+            }
+
+            SignConfirmRequest request = new SignConfirmRequest();
+            request.setSaveForReuse(saveForReuse);
+            request.setUserSignatureId(userSignatureId);
+            if (!StringUtils.hasText(userSignatureId)) {
+                if (signature == null) {
+                    return ResponseEntity.badRequest().body(Map.of(
+                            "error", "参数错误",
+                            "message", "signature是必需参数"
+                    ));
+                }
+                try (var in = signature.getInputStream()) {
+                    request.setSignatureImage(DataUrlImage.read(in, signature.getContentType(),
+                            signature.getSize(), maxSignatureSize.toBytes()));
+                }
+            }
+
+            return ResponseEntity.ok(signService.confirmSign(token, request, idempotencyKey));
+        } catch (MaxUploadSizeExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "签署确认失败",
+                    "message", String.valueOf(e.getMessage())
+            ));
+        }
+    }
+
+    /**
+     * 签名图片超过大小限制，包括multipart解析阶段抛出的异常
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> handleMaxUploadSize(MaxUploadSizeExceededException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of(
+                "error", "签署确认失败",
+                "message", "签名图片超过大小限制"
+        ));
+    }
+
+    /**
+     * 优先从Authorization请求头获取token，其次从token参数获取，去掉"Bearer "前缀
+     */
+    private String resolveToken(String authorization, String tokenParam) {
+        String bearer = authorization != null && !authorization.isEmpty() ? authorization : tokenParam;
+        if (bearer == null || bearer.length() <= 7) {
+            return null;
+        }
+        return bearer.substring(7);
+    }
+}
@@ -0,0 +1,137 @@
+package com.qrsignature.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.qrsignature.controller.vo.SignHistoryResponse;
+import com.qrsignature.service.SignHistoryService;
+import com.qrsignature.service.SignProgressTracker;
+import com.qrsignature.util.JacksonUtils;
+import com.qrsignature.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 签署历史与项目看板 - 游标分页，响应中的nextCursor作为下一页的cursor参数
+ * 面向运营与下游系统，由HistoryApiKeyInterceptor校验X-API-Key，签署token不能访问
+ */
+@RestController
+@RequestMapping("/api/sign/history")
+@CrossOrigin(origins = "*")
+public class SignHistoryController {
+
+    @Autowired
+    private SignHistoryService signHistoryService;
+
+    @Autowired
+    private SignProgressTracker signProgressTracker;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${sign.history.export-token-ttl:60s}")
+    private Duration exportTokenTtl;
+
+    /**
+     * 项目签署进度 - 各状态记录数，直接读取内存计数
+     */
+    @GetMapping("/projects/{projectId}/progress")
+    public ResponseEntity<?> getProjectProgress(@PathVariable String projectId) {
+        return ResponseEntity.ok(signProgressTracker.getProjectProgress(projectId));
+    }
+
+    /**
+     * 项目下单个文件的签署进度
+     */
+    @GetMapping("/projects/{projectId}/files/{fileId}/progress")
+    public ResponseEntity<?> getFileProgress(@PathVariable String projectId, @PathVariable String fileId) {
+        return ResponseEntity.ok(signProgressTracker.getFileProgress(projectId, fileId));
+    }
+
+    @GetMapping("/projects/{projectId}")
+    public ResponseEntity<?> getProjectHistory(@PathVariable String projectId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(signHistoryService.getProjectHistory(projectId, cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "查询项目签署记录失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<?> getUserHistory(@PathVariable String userId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(signHistoryService.getUserHistory(userId, cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "查询用户签署记录失败",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 获取导出下载token - 浏览器直接下载时以token查询参数传递，有效期较短，只能导出该项目
+     */
+    @PostMapping("/projects/{projectId}/export-token")
+    public ResponseEntity<?> createExportToken(@PathVariable String projectId) {
+        return ResponseEntity.ok(Map.of(
+                "token", jwtUtil.generateExportToken(projectId, exportTokenTtl),
+                "expiresIn", exportTokenTtl.toSeconds()
+        ));
+    }
+
+    /**
+     * 导出项目全部签署记录 - 逐页查询并以JSON数组流式输出，可使用X-API-Key或token查询参数中的下载token
+     * 首页查询成功后才返回200；后续页查询失败时不写入数组结尾，由容器中断连接，客户端不会收到看似完整的数组
+     */
+    @GetMapping("/projects/{projectId}/export")
+    public ResponseEntity<StreamingResponseBody> exportProjectHistory(@PathVariable String projectId) {
+        SignHistoryService.ProjectExport export;
+        try {
+            export = signHistoryService.exportProjectHistory(projectId);
+        } catch (Exception e) {
+            Map<String, Object> error = Map.of(
+                    "error", "导出项目签署记录失败",
+                    "message", e.getMessage()
+            );
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> JacksonUtils.mapper.writeValue(outputStream, error));
+        }
+        StreamingResponseBody body = outputStream -> {
+            // 异常时不能由close补全数组结尾，只在全部写完后关闭
+            JsonGenerator generator = JacksonUtils.mapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartArray();
+            export.forEachPage(records -> {
+                try {
+                    for (SignHistoryResponse.SignRecordVO record : records) {
+                        generator.writeObject(record);
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -1,6 +1,8 @@
 package com.qrsignature.controller.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.qrsignature.util.DataUrlImage;
 import lombok.Data;
 
 /**
@@ -13,4 +15,8 @@ public class SignConfirmRequest {
     private String signatureBase64;
     private String userSignatureId;
     private Boolean saveForReuse = false;
+
+    // 二进制/multipart上传时已读取的签名图片，优先于signatureBase64
+    @JsonIgnore
+    private DataUrlImage signatureImage;
 }
\ No newline at end of file
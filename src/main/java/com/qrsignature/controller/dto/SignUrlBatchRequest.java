@@ -0,0 +1,24 @@
+package com.qrsignature.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量生成签署URL请求，同一项目下的多个(用户, 文件)
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SignUrlBatchRequest {
+    private String projectId;
+    private List<Entry> entries;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        private String userId;
+        private String fileId;
+        private String metaCode;
+    }
+}
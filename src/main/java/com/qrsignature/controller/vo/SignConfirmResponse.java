@@ -1,12 +1,13 @@
 package com.qrsignature.controller.vo;
 
+import com.qrsignature.util.DataUrlImage;
 import lombok.Data;
 
 @Data
 public class SignConfirmResponse {
     private String message;
     private String status;
-    private String signatureBase64;
+    private DataUrlImage signatureBase64;
     private String signRecordId;
     private Integer signatureSequence;
 }
\ No newline at end of file
@@ -6,10 +6,15 @@ import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * 签署历史分页响应 - nextCursor为空表示已到最后一页
+ */
 @Data
 public class SignHistoryResponse {
     private List<SignRecordVO> signRecords;
+    // 仅用户历史首页返回该用户保存的历史签名
     private List<UserSignatureVO> userSignatures;
+    private String nextCursor;
 
     @Data
     public static class SignRecordVO {
@@ -19,9 +24,9 @@ public class SignHistoryResponse {
         private String fileId;
         private String metaCode;
         private String status;
-        private String signatureBase64;
+        // 签名图片通过/signature-image按需获取
+        private String signatureImageId;
         private Integer signatureSequence;
-        private String userSignatureId;
 
         @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
         private LocalDateTime createTime;
@@ -29,4 +34,4 @@ public class SignHistoryResponse {
         @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
         private LocalDateTime updateTime;
     }
-}
\ No newline at end of file
+}
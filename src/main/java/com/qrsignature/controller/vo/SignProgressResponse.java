@@ -0,0 +1,17 @@
+package com.qrsignature.controller.vo;
+
+import lombok.Data;
+
+/**
+ * 签署进度 - 项目或项目下单个文件的签署记录按状态计数
+ */
+@Data
+public class SignProgressResponse {
+    private String projectId;
+    // 项目进度时为空
+    private String fileId;
+    private long total;
+    private long unscanned;
+    private long scannedUnconfirmed;
+    private long signed;
+}
@@ -9,5 +9,10 @@ import lombok.Data;
 public class SignStatusResponse {
     private String signRecordId;
     private String status;
-    private String signatureBase64;
+    private Integer signatureSequence;
+    // 已签署时返回签名图片ID，图片通过 /api/sign/signature-image 按需获取
+    private String signatureImageId;
+    // 已签署时返回盖章进度，盖章完成后的文件通过 /api/sign/stamped-document 获取
+    private String stampStatus;
+    private String stampedDocumentId;
 }
\ No newline at end of file
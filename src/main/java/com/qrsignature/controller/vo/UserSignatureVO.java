@@ -9,13 +9,11 @@ import java.time.LocalDateTime;
 public class UserSignatureVO {
     private String id;
     private String userId;
-    private String signatureName;
-    private String signatureBase64;
-    private Boolean isDefault;
+    private String signatureImageId;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createdAt;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime updatedAt;
-}
\ No newline at end of file
+}
@@ -1,24 +1,37 @@
 package com.qrsignature.controller.vo;
 
 import lombok.Data;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * 用户签名历史响应
+ * 用户签名历史响应 - 只返回签名ID与图片ID，图片通过/user-signatures/{id}/image按需获取
  */
 @Data
 public class UserSignaturesResponse {
-    
+
     private String userId;
     private List<SignatureInfo> signatures;
-    
+
+    /**
+     * 列表ETag - 由签名ID与图片ID计算，保存新签名后随之变化
+     */
+    public String etag() {
+        StringBuilder content = new StringBuilder(userId);
+        for (SignatureInfo signature : signatures) {
+            content.append('|').append(signature.getId()).append(':').append(signature.getSignatureImageId());
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
     @Data
     public static class SignatureInfo {
         private String id;
-        private String signatureBase64;
+        private String signatureImageId;
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.qrsignature.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.Getter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -11,10 +12,21 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
+ * (project_id, user_id, file_id, signature_sequence)唯一索引见SchemaConstraints
+ *
  * @author Administrator
  */
 @Entity
-@Table(name = "sign_record")
+@Table(name = "sign_record",
+        indexes = {
+                // 签署历史按(createTime, id)分页
+                @Index(name = "idx_sign_record_project_time", columnList = "project_id, create_time, id"),
+                @Index(name = "idx_sign_record_user_time", columnList = "user_id, create_time, id"),
+                // 盖章补偿任务查找待盖章记录
+                @Index(name = "idx_sign_record_stamp_status", columnList = "stamp_status"),
+                // 确认结果缓存淘汰后按幂等键重放
+                @Index(name = "idx_sign_record_confirm_key", columnList = "confirm_key"),
+        })
 @EntityListeners(AuditingEntityListener.class)
 @Data
 public class SignRecord {
@@ -39,12 +51,32 @@ public class SignRecord {
     @Column(nullable = false)
     private SignStatus status = SignStatus.UNSCANNED;
 
-    @Column(length = 1000000)
-    private String signatureBase64;
+    // 签名图片单独存储于signature_image表，按需加载
+    @Column(name = "signature_image_id", length = 64)
+    private String signatureImageId;
 
     @Column(name = "signature_sequence")
     private Integer signatureSequence = 1;
 
+    // 签名盖章到源文件的进度，未启用盖章时为空
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stamp_status", length = 20)
+    private StampStatus stampStatus;
+
+    // 盖章后的文件ID，即文件内容SHA-256加扩展名
+    @Column(name = "stamped_document_id", length = 80)
+    private String stampedDocumentId;
+
+    // 确认签署时的幂等键摘要(token与Idempotency-Key的SHA-256)，与签署结果一同提交
+    @Column(name = "confirm_key", length = 64)
+    private String confirmKey;
+
+    // 乐观锁版本号，并发确认签署时只有一个请求能提交；默认值用于为已有数据补列
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createTime;
@@ -67,6 +99,20 @@ public class SignRecord {
 
     }
 
+    @Getter
+    public enum StampStatus {
+        PENDING("盖章中"),
+        STAMPED("已盖章"),
+        NO_DOCUMENT("无源文件"),
+        FAILED("盖章失败");
+
+        private final String description;
+
+        StampStatus(String description) {
+            this.description = description;
+        }
+    }
+
 
     @PrePersist
     public void generateId() {
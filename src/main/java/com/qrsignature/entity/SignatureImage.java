@@ -0,0 +1,47 @@
+package com.qrsignature.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 签名图片 - 以内容SHA-256为主键存储二进制图片，相同图片只存一份
+ *
+ * @author Administrator
+ */
+@Entity
+@Table(name = "signature_image")
+@Data
+@NoArgsConstructor
+public class SignatureImage {
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false, length = 64)
+    private String id;
+
+    @Column(name = "content_type", nullable = false, length = 50)
+    private String contentType;
+
+    @Column(name = "data", nullable = false, columnDefinition = "BLOB")
+    private byte[] data;
+
+    @Column(name = "size", nullable = false)
+    private Integer size;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public SignatureImage(String id, String contentType, byte[] data) {
+        this.id = id;
+        this.contentType = contentType;
+        this.data = data;
+        this.size = data.length;
+    }
+}
@@ -27,8 +27,8 @@ public class UserSignature {
     @Column(name = "user_id", nullable = false, length = 100, unique = true)
     private String userId;
 
-    @Column(name = "signature_base64", nullable = false, columnDefinition = "TEXT")
-    private String signatureBase64;
+    @Column(name = "signature_image_id", length = 64)
+    private String signatureImageId;
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -47,8 +47,8 @@ public class UserSignature {
         updatedAt = LocalDateTime.now();
     }
 
-    public UserSignature(String userId, String signatureBase64) {
+    public UserSignature(String userId, String signatureImageId) {
         this.userId = userId;
-        this.signatureBase64 = signatureBase64;
+        this.signatureImageId = signatureImageId;
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.qrsignature.persistence;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 定时任务锁 - 多个节点共用同一数据库时，只由持有锁的节点执行同名定时任务
+ * <p>
+ * 锁带有效期，持有节点每次执行前续期；节点退出时释放，异常退出时其他节点在有效期过后接管
+ */
+@Slf4j
+@Component
+public class SchedulerLock {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS scheduler_lock ("
+                + "name VARCHAR(64) PRIMARY KEY, owner VARCHAR(36) NOT NULL, locked_until INTEGER NOT NULL)");
+    }
+
+    /**
+     * 获取或续期锁，其他节点持有且未过期时返回false
+     *
+     * @param leaseTime 有效期，应大于任务的执行间隔，持有节点异常退出后其他节点最多等待该时长接管
+     */
+    public boolean tryLock(String name, Duration leaseTime) {
+        long now = System.currentTimeMillis();
+        long lockedUntil = now + leaseTime.toMillis();
+        // 只有锁不存在、由本节点持有或已过期时写入，否则影响行数为0
+        int updated = singleWriterQueue.execute(() -> jdbcTemplate.update(
+                "INSERT INTO scheduler_lock (name, owner, locked_until) VALUES (?, ?, ?)"
+                        + " ON CONFLICT(name) DO UPDATE SET owner = excluded.owner, locked_until = excluded.locked_until"
+                        + " WHERE scheduler_lock.owner = excluded.owner OR scheduler_lock.locked_until <= ?",
+                name, nodeId, lockedUntil, now));
+        return updated > 0;
+    }
+
+    /**
+     * 释放本节点持有的锁，其他节点下次执行时即可接管
+     */
+    public void unlock(String name) {
+        try {
+            singleWriterQueue.execute(() -> jdbcTemplate.update(
+                    "DELETE FROM scheduler_lock WHERE name = ? AND owner = ?", name, nodeId));
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("释放定时任务锁失败, name={}: {}", name, e.getMessage());
+        }
+    }
+}
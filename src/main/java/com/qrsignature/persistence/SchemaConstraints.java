@@ -0,0 +1,46 @@
+package com.qrsignature.persistence;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+
+/**
+ * 补充hibernate无法在SQLite上创建的约束 - SQLite不支持ALTER TABLE ADD CONSTRAINT，
+ * ddl-auto: update遇到@Index(unique = true)会静默跳过，因此在建表后直接创建唯一索引
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaConstraints {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void createUniqueIndexes() {
+        try {
+            // 签名序号由SignSequenceAllocator在各节点内存中分配，重复序号由该索引拒绝后重新分配
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_sign_record_project_user_file_seq"
+                    + " ON sign_record (project_id, user_id, file_id, signature_sequence)");
+            // 唯一索引已覆盖旧版的普通索引
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_sign_record_project_user_file_seq");
+        } catch (DataAccessException e) {
+            log.error("创建签名序号唯一索引失败，请先清理重复的签名序号: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 是否违反唯一索引 - SQLite驱动不返回SQLState，hibernate将其包装为JpaSystemException而非DataIntegrityViolationException，需按驱动错误码判断
+     */
+    public static boolean isUniqueViolation(RuntimeException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLiteException cause
+                && cause.getResultCode() == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE;
+    }
+}
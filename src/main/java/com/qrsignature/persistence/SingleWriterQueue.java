@@ -0,0 +1,187 @@
+package com.qrsignature.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * SQLite单写线程队列 - SQLite同一时刻只允许一个写事务，所有写操作交给专用写线程串行执行，
+ * 写线程把队列中积压的写操作合并到同一个事务中提交(group commit)，读操作仍走连接池
+ */
+@Slf4j
+@Component
+public class SingleWriterQueue {
+
+    @Value("${sign.persistence.single-writer:true}")
+    private boolean enabled;
+
+    @Value("${sign.persistence.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${sign.persistence.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<WriteTask<?>> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!enabled) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::drain, "sqlite-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // 停止接收后继续处理队列中剩余的写操作
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * 执行写操作并等待提交完成，返回写操作结果
+     */
+    public <T> T execute(Supplier<T> action) {
+        // 已在写线程的事务中
+        if (Thread.currentThread() == writer) {
+            return action.get();
+        }
+        // 未启用单写模式时在调用线程中以独立事务执行
+        if (!enabled) {
+            return transactionTemplate.execute(status -> action.get());
+        }
+        if (!running) {
+            throw new IllegalStateException("写队列已关闭");
+        }
+
+        WriteTask<T> task = new WriteTask<>(action);
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("写操作被中断", e);
+        }
+        // 检查与入队之间可能已经停止，写线程退出后不会再处理队列，由调用方自行移除并失败
+        if (!running && queue.remove(task)) {
+            task.future.completeExceptionally(new IllegalStateException("写队列已关闭"));
+        }
+
+        try {
+            return task.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void execute(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void drain() {
+        List<WriteTask<?>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteTask<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Throwable e) {
+                log.error("写线程处理异常", e);
+                batch.forEach(task -> task.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+
+        WriteTask<?> rejected;
+        while ((rejected = queue.poll()) != null) {
+            rejected.future.completeExceptionally(new IllegalStateException("写队列已关闭"));
+        }
+    }
+
+    private void commit(List<WriteTask<?>> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(WriteTask::run));
+            batch.forEach(WriteTask::complete);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // 合并提交失败时逐个重新提交，只让出错的写操作失败
+            log.debug("合并提交{}个写操作失败，逐个重试: {}", batch.size(), e.getMessage());
+            for (WriteTask<?> task : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> task.run());
+                    task.complete();
+                } catch (RuntimeException single) {
+                    task.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private static class WriteTask<T> {
+
+        private final Supplier<T> action;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private T result;
+
+        WriteTask(Supplier<T> action) {
+            this.action = action;
+        }
+
+        void run() {
+            result = action.get();
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
@@ -1,27 +1,98 @@
 package com.qrsignature.repository;
 
 import com.qrsignature.entity.SignRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SignRecordRepository extends JpaRepository<SignRecord, String> {
 
+    String RECORD_VIEW_COLUMNS = "SELECT s.id AS id, s.projectId AS projectId, s.userId AS userId, s.fileId AS fileId, " +
+            "s.metaCode AS metaCode, s.status AS status, s.signatureSequence AS signatureSequence, " +
+            "s.signatureImageId AS signatureImageId, s.createTime AS createTime, s.updateTime AS updateTime " +
+            "FROM SignRecord s ";
+
     Optional<SignRecord> findByProjectIdAndUserIdAndFileId(String projectId, String userId, String fileId);
 
-    List<SignRecord> findByProjectId(String projectId);
+    boolean existsByProjectIdAndUserIdAndFileId(String projectId, String userId, String fileId);
 
-    List<SignRecord> findByUserId(String userId);
+    Optional<SignRecord> findFirstByConfirmKeyAndStatus(String confirmKey, SignRecord.SignStatus status);
 
-    List<SignRecord> findByFileId(String fileId);
+    @Query("SELECT s.id AS id, s.status AS status, s.signatureSequence AS signatureSequence, " +
+            "s.signatureImageId AS signatureImageId, s.stampStatus AS stampStatus, " +
+            "s.stampedDocumentId AS stampedDocumentId FROM SignRecord s WHERE s.id = ?1")
+    Optional<SignStatusView> findStatusById(String id);
 
-    boolean existsByProjectIdAndUserIdAndFileId(String projectId, String userId, String fileId);
+    /**
+     * 批量状态迁移，仅更新当前状态为expected的记录，返回实际更新条数
+     */
+    @Modifying
+    @Query("UPDATE SignRecord s SET s.status = ?2, s.updateTime = ?3 WHERE s.id IN ?1 AND s.status = ?4")
+    int updateStatus(Collection<String> ids, SignRecord.SignStatus status, LocalDateTime updateTime,
+                     SignRecord.SignStatus expected);
+
+    @Query("SELECT s.id FROM SignRecord s WHERE s.id IN ?1 AND s.status = ?2")
+    List<String> findIdsByStatus(Collection<String> ids, SignRecord.SignStatus status);
+
+    /**
+     * 项目签署记录首页，按创建时间倒序，走(project_id, create_time, id)索引
+     */
+    @Query(RECORD_VIEW_COLUMNS + "WHERE s.projectId = ?1 ORDER BY s.createTime DESC, s.id DESC")
+    List<SignRecordView> findProjectHistory(String projectId, Pageable pageable);
+
+    /**
+     * 项目签署记录下一页 - 从上一页最后一条(createTime, id)之后继续，不使用OFFSET
+     * createTime <= ?2 作为索引范围条件，其余条件在范围内过滤
+     */
+    @Query(RECORD_VIEW_COLUMNS + "WHERE s.projectId = ?1 AND s.createTime <= ?2 " +
+            "AND (s.createTime < ?2 OR s.id < ?3) ORDER BY s.createTime DESC, s.id DESC")
+    List<SignRecordView> findProjectHistoryAfter(String projectId, LocalDateTime createTime, String id, Pageable pageable);
+
+    /**
+     * 用户签署记录首页，走(user_id, create_time, id)索引
+     */
+    @Query(RECORD_VIEW_COLUMNS + "WHERE s.userId = ?1 ORDER BY s.createTime DESC, s.id DESC")
+    List<SignRecordView> findUserHistory(String userId, Pageable pageable);
+
+    @Query(RECORD_VIEW_COLUMNS + "WHERE s.userId = ?1 AND s.createTime <= ?2 " +
+            "AND (s.createTime < ?2 OR s.id < ?3) ORDER BY s.createTime DESC, s.id DESC")
+    List<SignRecordView> findUserHistoryAfter(String userId, LocalDateTime createTime, String id, Pageable pageable);
+
+    /**
+     * 全部签署记录按项目、文件与状态计数，启动时重建签署进度
+     */
+    @Query("SELECT s.projectId AS projectId, s.fileId AS fileId, s.status AS status, COUNT(s) AS recordCount " +
+            "FROM SignRecord s GROUP BY s.projectId, s.fileId, s.status")
+    List<SignStatusCount> countByProjectAndFile();
+
+    /**
+     * 指定记录中处于某状态的记录按项目、文件计数，用于批量状态迁移前确定进度变化
+     */
+    @Query("SELECT s.projectId AS projectId, s.fileId AS fileId, s.status AS status, COUNT(s) AS recordCount " +
+            "FROM SignRecord s WHERE s.id IN ?1 AND s.status = ?2 GROUP BY s.projectId, s.fileId, s.status")
+    List<SignStatusCount> countByIdsAndStatus(Collection<String> ids, SignRecord.SignStatus status);
+
+    /**
+     * 同一文件已签署的签名位置与图片，按签署先后排序，相同签名集合的盖章结果一致
+     */
+    @Query("SELECT s.metaCode AS metaCode, s.signatureImageId AS signatureImageId FROM SignRecord s " +
+            "WHERE s.projectId = ?1 AND s.fileId = ?2 AND s.status = ?3 ORDER BY s.updateTime, s.id")
+    List<SignStampView> findStamps(String projectId, String fileId, SignRecord.SignStatus status);
+
+    @Query("SELECT s.id FROM SignRecord s WHERE s.stampStatus = ?1")
+    List<String> findIdsByStampStatus(SignRecord.StampStatus stampStatus, Pageable pageable);
 
-    List<SignRecord> findByStatus(SignRecord.SignStatus status);
+    @Modifying
+    @Query("UPDATE SignRecord s SET s.stampStatus = ?2, s.stampedDocumentId = ?3 WHERE s.id = ?1")
+    int updateStamp(String id, SignRecord.StampStatus stampStatus, String stampedDocumentId);
 
     @Query("SELECT MAX(s.signatureSequence) FROM SignRecord s WHERE s.projectId = ?1 AND s.userId = ?2 AND s.fileId = ?3")
     Integer getMaxSignatureSequence(String projectId, String userId, String fileId);
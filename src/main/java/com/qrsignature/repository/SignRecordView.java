@@ -0,0 +1,31 @@
+package com.qrsignature.repository;
+
+import com.qrsignature.entity.SignRecord;
+
+import java.time.LocalDateTime;
+
+/**
+ * 签署记录列表投影 - 历史与看板查询只读取列表展示所需的列，签名图片按ID另行获取
+ */
+public interface SignRecordView {
+
+    String getId();
+
+    String getProjectId();
+
+    String getUserId();
+
+    String getFileId();
+
+    String getMetaCode();
+
+    SignRecord.SignStatus getStatus();
+
+    Integer getSignatureSequence();
+
+    String getSignatureImageId();
+
+    LocalDateTime getCreateTime();
+
+    LocalDateTime getUpdateTime();
+}
@@ -0,0 +1,11 @@
+package com.qrsignature.repository;
+
+/**
+ * 盖章投影 - 签名位置码与签名图片ID
+ */
+public interface SignStampView {
+
+    String getMetaCode();
+
+    String getSignatureImageId();
+}
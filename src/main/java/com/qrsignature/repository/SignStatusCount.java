@@ -0,0 +1,17 @@
+package com.qrsignature.repository;
+
+import com.qrsignature.entity.SignRecord;
+
+/**
+ * 按项目、文件与状态分组的签署记录数
+ */
+public interface SignStatusCount {
+
+    String getProjectId();
+
+    String getFileId();
+
+    SignRecord.SignStatus getStatus();
+
+    long getRecordCount();
+}
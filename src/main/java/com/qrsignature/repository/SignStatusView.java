@@ -0,0 +1,21 @@
+package com.qrsignature.repository;
+
+import com.qrsignature.entity.SignRecord;
+
+/**
+ * 签署状态投影 - 状态查询只读取必要列，不加载整个实体
+ */
+public interface SignStatusView {
+
+    String getId();
+
+    SignRecord.SignStatus getStatus();
+
+    Integer getSignatureSequence();
+
+    String getSignatureImageId();
+
+    SignRecord.StampStatus getStampStatus();
+
+    String getStampedDocumentId();
+}
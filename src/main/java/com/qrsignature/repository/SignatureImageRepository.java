@@ -0,0 +1,9 @@
+package com.qrsignature.repository;
+
+import com.qrsignature.entity.SignatureImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SignatureImageRepository extends JpaRepository<SignatureImage, String> {
+}
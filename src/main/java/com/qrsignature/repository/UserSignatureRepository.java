@@ -29,8 +29,14 @@ public interface UserSignatureRepository extends JpaRepository<UserSignature, St
     void deleteByUserIdAndId(String userId, String signatureId);
 
     /**
-     * 检查用户是否已存在签名
+     * 检查用户是否已存在签名 - 只查询user_id列，由唯一索引覆盖，无需回表
      */
-    @Query("SELECT COUNT(us.userId) > 0 FROM UserSignature us WHERE us.userId = :userId")
-    boolean existsByUserId(@Param("userId") String userId);
-}
\ No newline at end of file
+    @Query(value = "SELECT user_id FROM user_signatures WHERE user_id = :userId LIMIT 1", nativeQuery = true)
+    Optional<String> findUserIdByUserId(@Param("userId") String userId);
+
+    /**
+     * 所有已保存签名的用户ID，启动时构建用户签名索引
+     */
+    @Query("SELECT us.userId FROM UserSignature us")
+    List<String> findAllUserIds();
+}
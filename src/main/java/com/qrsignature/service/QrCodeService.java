@@ -0,0 +1,83 @@
+package com.qrsignature.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qrsignature.util.QrCodeEncoder;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二维码图片服务 - 服务端直接生成PNG/SVG，按token缓存编码结果
+ */
+@Service
+public class QrCodeService {
+
+    public static final String FORMAT_PNG = "png";
+
+    public static final String FORMAT_SVG = "svg";
+
+    @Value("${jwt.expiration}")
+    private long expiration;
+
+    @Value("${sign.qr.cache-max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    @Value("${sign.qr.default-size:300}")
+    private int defaultSize;
+
+    @Value("${sign.qr.max-size:1200}")
+    private int maxSize;
+
+    // 按图片字节数限制缓存容量，缓存时间不超过token有效期
+    private Cache<String, QrCodeImage> imageCache;
+
+    @PostConstruct
+    public void init() {
+        imageCache = CacheBuilder.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String key, QrCodeImage image) -> image.getData().length)
+                .expireAfterWrite(expiration, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 生成二维码图片，相同token、格式与尺寸只编码一次
+     */
+    public QrCodeImage render(String token, String content, String format, Integer size) {
+        String normalizedFormat = format == null ? FORMAT_PNG : format.toLowerCase();
+        if (!FORMAT_PNG.equals(normalizedFormat) && !FORMAT_SVG.equals(normalizedFormat)) {
+            throw new IllegalArgumentException("不支持的二维码格式: " + format);
+        }
+        int normalizedSize = size == null ? defaultSize : size;
+        if (normalizedSize <= 0 || normalizedSize > maxSize) {
+            throw new IllegalArgumentException("二维码尺寸需在1-" + maxSize + "之间");
+        }
+
+        String cacheKey = normalizedFormat + ':' + normalizedSize + ':' + token;
+        try {
+            return imageCache.get(cacheKey, () -> {
+                byte[] data = FORMAT_SVG.equals(normalizedFormat)
+                        ? QrCodeEncoder.encodeSvg(content, normalizedSize)
+                        : QrCodeEncoder.encodePng(content, normalizedSize);
+                String contentType = FORMAT_SVG.equals(normalizedFormat) ? "image/svg+xml" : "image/png";
+                return new QrCodeImage(data, contentType, SignatureImageService.sha256(cacheKey.getBytes()));
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException("二维码生成失败", e.getCause());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class QrCodeImage {
+        private final byte[] data;
+        private final String contentType;
+        private final String etag;
+    }
+}
@@ -0,0 +1,189 @@
+package com.qrsignature.service;
+
+import com.qrsignature.controller.vo.SignHistoryResponse;
+import com.qrsignature.controller.vo.UserSignatureVO;
+import com.qrsignature.controller.vo.UserSignaturesResponse;
+import com.qrsignature.repository.SignRecordRepository;
+import com.qrsignature.repository.SignRecordView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 签署历史与项目看板 - 按(createTime, id)游标分页，只查询列表所需的列，
+ * 分页深度不影响查询代价，导出时逐页输出，内存占用与记录总数无关
+ */
+@Service
+public class SignHistoryService {
+
+    @Autowired
+    private SignRecordRepository signRecordRepository;
+
+    @Autowired
+    private SignService signService;
+
+    @Autowired
+    private SignMetrics signMetrics;
+
+    @Value("${sign.history.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * 项目签署记录分页，cursor为上一页返回的nextCursor，首页传空
+     */
+    public SignHistoryResponse getProjectHistory(String projectId, String cursor, int limit) {
+        return signMetrics.observe("getProjectHistory", () -> {
+            Pageable page = page(limit);
+            Cursor position = Cursor.decode(cursor);
+            List<SignRecordView> records = position == null
+                    ? signRecordRepository.findProjectHistory(projectId, page)
+                    : signRecordRepository.findProjectHistoryAfter(projectId, position.getCreateTime(), position.getId(), page);
+            return toResponse(records, page.getPageSize());
+        });
+    }
+
+    /**
+     * 用户签署记录分页，首页同时返回该用户保存的历史签名
+     */
+    public SignHistoryResponse getUserHistory(String userId, String cursor, int limit) {
+        return signMetrics.observe("getUserHistory", () -> {
+            Pageable page = page(limit);
+            Cursor position = Cursor.decode(cursor);
+            List<SignRecordView> records = position == null
+                    ? signRecordRepository.findUserHistory(userId, page)
+                    : signRecordRepository.findUserHistoryAfter(userId, position.getCreateTime(), position.getId(), page);
+            SignHistoryResponse response = toResponse(records, page.getPageSize());
+            if (position == null) {
+                response.setUserSignatures(signService.getUserSignatures(userId).getSignatures().stream()
+                        .map(signature -> toUserSignatureVO(userId, signature))
+                        .toList());
+            }
+            return response;
+        });
+    }
+
+    /**
+     * 导出项目全部签署记录 - 在此查询首页，调用方确认首页成功后再提交响应，
+     * 其余页在ProjectExport.forEachPage中按最大页大小逐页查询，每页交给consumer输出后即释放
+     */
+    public ProjectExport exportProjectHistory(String projectId) {
+        return signMetrics.observe("exportProjectHistory", () -> {
+            Pageable page = page(maxPageSize);
+            return new ProjectExport(projectId, page, signRecordRepository.findProjectHistory(projectId, page));
+        });
+    }
+
+    /**
+     * 进行中的项目导出，持有已查询的首页
+     */
+    public class ProjectExport {
+        private final String projectId;
+        private final Pageable page;
+        private final List<SignRecordView> firstPage;
+
+        private ProjectExport(String projectId, Pageable page, List<SignRecordView> firstPage) {
+            this.projectId = projectId;
+            this.page = page;
+            this.firstPage = firstPage;
+        }
+
+        /**
+         * 依次输出首页与后续各页，后续页查询失败时抛出异常，已输出的内容不完整
+         */
+        public void forEachPage(Consumer<List<SignHistoryResponse.SignRecordVO>> consumer) {
+            signMetrics.observe("exportProjectHistory", () -> {
+                List<SignRecordView> records = firstPage;
+                while (!records.isEmpty()) {
+                    consumer.accept(records.stream().map(SignHistoryService.this::toSignRecordVO).toList());
+                    if (records.size() < page.getPageSize()) {
+                        break;
+                    }
+                    SignRecordView last = records.get(records.size() - 1);
+                    records = signRecordRepository.findProjectHistoryAfter(projectId, last.getCreateTime(), last.getId(), page);
+                }
+            });
+        }
+    }
+
+    private Pageable page(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit需大于0");
+        }
+        return PageRequest.of(0, Math.min(limit, maxPageSize));
+    }
+
+    private SignHistoryResponse toResponse(List<SignRecordView> records, int pageSize) {
+        SignHistoryResponse response = new SignHistoryResponse();
+        response.setSignRecords(records.stream().map(this::toSignRecordVO).toList());
+        // 不足一页说明已到末尾，不再返回游标
+        if (records.size() == pageSize) {
+            SignRecordView last = records.get(records.size() - 1);
+            response.setNextCursor(new Cursor(last.getCreateTime(), last.getId()).encode());
+        }
+        return response;
+    }
+
+    private SignHistoryResponse.SignRecordVO toSignRecordVO(SignRecordView record) {
+        SignHistoryResponse.SignRecordVO vo = new SignHistoryResponse.SignRecordVO();
+        vo.setId(record.getId());
+        vo.setProjectId(record.getProjectId());
+        vo.setUserId(record.getUserId());
+        vo.setFileId(record.getFileId());
+        vo.setMetaCode(record.getMetaCode());
+        vo.setStatus(record.getStatus().getDescription());
+        vo.setSignatureImageId(record.getSignatureImageId());
+        vo.setSignatureSequence(record.getSignatureSequence());
+        vo.setCreateTime(record.getCreateTime());
+        vo.setUpdateTime(record.getUpdateTime());
+        return vo;
+    }
+
+    private UserSignatureVO toUserSignatureVO(String userId, UserSignaturesResponse.SignatureInfo signature) {
+        UserSignatureVO vo = new UserSignatureVO();
+        vo.setId(signature.getId());
+        vo.setUserId(userId);
+        vo.setSignatureImageId(signature.getSignatureImageId());
+        vo.setCreatedAt(signature.getCreatedAt());
+        vo.setUpdatedAt(signature.getUpdatedAt());
+        return vo;
+    }
+
+    /**
+     * 分页游标 - 上一页最后一条记录的(createTime, id)，以URL安全的Base64传递
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Cursor {
+        private final LocalDateTime createTime;
+        private final String id;
+
+        String encode() {
+            String value = createTime + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.indexOf('|');
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
+    }
+}
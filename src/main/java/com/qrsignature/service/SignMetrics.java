@@ -0,0 +1,46 @@
+package com.qrsignature.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 签署操作观测 - 每次操作记录为sign.operation计时器(含次数)，标签operation为操作名，outcome为success/failure
+ * 基于Observation API，接入链路追踪后同一操作会同时生成span
+ */
+@Component
+public class SignMetrics {
+
+    private static final String OBSERVATION_NAME = "sign.operation";
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    public <T> T observe(String operation, Supplier<T> action) {
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName("sign " + operation)
+                .lowCardinalityKeyValue("operation", operation)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = action.get();
+            observation.lowCardinalityKeyValue("outcome", "success");
+            return result;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", "failure");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    public void observe(String operation, Runnable action) {
+        observe(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
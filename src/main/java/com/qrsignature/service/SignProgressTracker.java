@@ -0,0 +1,159 @@
+package com.qrsignature.service;
+
+import com.qrsignature.controller.vo.SignProgressResponse;
+import com.qrsignature.entity.SignRecord;
+import com.qrsignature.repository.SignRecordRepository;
+import com.qrsignature.repository.SignStatusCount;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 签署进度计数 - 按项目与(项目, 文件)维护各状态的记录数，启动时从数据库重建，
+ * 之后随签署记录创建、扫码写入与确认签署增量更新，查询进度不访问数据库
+ * 计数反映已提交的状态，扫码状态随SignScanTracker合并写入延迟更新
+ * <p>
+ * redis模式下每次计数变化经RedisSignProgressRelay广播，其他节点累加到各自的计数上，各节点返回相同的进度；
+ * 广播不保证送达，Redis断连期间丢失的变化在节点重启重建后恢复
+ */
+@Slf4j
+@Component
+public class SignProgressTracker {
+
+    @Autowired
+    private SignRecordRepository signRecordRepository;
+
+    private final ConcurrentMap<String, StatusCounts> projects = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<String>, StatusCounts> files = new ConcurrentHashMap<>();
+
+    // redis模式下把计数变化转发给其他节点，见RedisSignProgressRelay
+    private volatile Consumer<Change> relay;
+
+    @PostConstruct
+    public void rebuild() {
+        List<SignStatusCount> counts = signRecordRepository.countByProjectAndFile();
+        for (SignStatusCount count : counts) {
+            add(count.getProjectId(), count.getFileId(), count.getStatus(), count.getRecordCount());
+        }
+        log.info("已重建{}个项目、{}个文件的签署进度", projects.size(), files.size());
+    }
+
+    public void setRelay(Consumer<Change> relay) {
+        this.relay = relay;
+    }
+
+    /**
+     * 签署记录创建并提交后调用
+     */
+    public void recordCreated(String projectId, String fileId, long count) {
+        record(new Change(projectId, fileId, null, SignRecord.SignStatus.UNSCANNED, count));
+    }
+
+    /**
+     * 签署记录状态迁移提交后调用
+     */
+    public void recordTransition(String projectId, String fileId, SignRecord.SignStatus from,
+                                 SignRecord.SignStatus to, long count) {
+        if (from == to) {
+            return;
+        }
+        record(new Change(projectId, fileId, from, to, count));
+    }
+
+    /**
+     * 累加其他节点转发的计数变化，不再转发
+     */
+    public void apply(Change change) {
+        if (change.getFrom() != null) {
+            add(change.getProjectId(), change.getFileId(), change.getFrom(), -change.getCount());
+        }
+        add(change.getProjectId(), change.getFileId(), change.getTo(), change.getCount());
+    }
+
+    private void record(Change change) {
+        apply(change);
+        Consumer<Change> current = relay;
+        if (current != null) {
+            current.accept(change);
+        }
+    }
+
+    public SignProgressResponse getProjectProgress(String projectId) {
+        return toResponse(projectId, null, projects.get(key(projectId)));
+    }
+
+    public SignProgressResponse getFileProgress(String projectId, String fileId) {
+        return toResponse(projectId, fileId, files.get(fileKey(projectId, fileId)));
+    }
+
+    private void add(String projectId, String fileId, SignRecord.SignStatus status, long delta) {
+        projects.computeIfAbsent(key(projectId), k -> new StatusCounts()).add(status, delta);
+        files.computeIfAbsent(fileKey(projectId, fileId), k -> new StatusCounts()).add(status, delta);
+    }
+
+    // 并发Map不接受null键，项目或文件ID为空的记录统一计入空字符串
+    private static String key(String id) {
+        return Objects.toString(id, "");
+    }
+
+    private static List<String> fileKey(String projectId, String fileId) {
+        return List.of(key(projectId), key(fileId));
+    }
+
+    private static SignProgressResponse toResponse(String projectId, String fileId, StatusCounts counts) {
+        SignProgressResponse response = new SignProgressResponse();
+        response.setProjectId(projectId);
+        response.setFileId(fileId);
+        if (counts != null) {
+            response.setUnscanned(counts.get(SignRecord.SignStatus.UNSCANNED));
+            response.setScannedUnconfirmed(counts.get(SignRecord.SignStatus.SCANNED_UNCONFIRMED));
+            response.setSigned(counts.get(SignRecord.SignStatus.SIGNED));
+        }
+        response.setTotal(response.getUnscanned() + response.getScannedUnconfirmed() + response.getSigned());
+        return response;
+    }
+
+    /**
+     * 计数变化 - from为空表示新建的记录
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private String projectId;
+        private String fileId;
+        private SignRecord.SignStatus from;
+        private SignRecord.SignStatus to;
+        private long count;
+    }
+
+    private static class StatusCounts {
+        private final LongAdder[] counts = new LongAdder[SignRecord.SignStatus.values().length];
+
+        StatusCounts() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void add(SignRecord.SignStatus status, long delta) {
+            counts[status.ordinal()].add(delta);
+        }
+
+        long get(SignRecord.SignStatus status) {
+            return counts[status.ordinal()].sum();
+        }
+    }
+}
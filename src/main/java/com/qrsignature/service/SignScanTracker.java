@@ -0,0 +1,127 @@
+package com.qrsignature.service;
+
+import com.qrsignature.cache.SignCache;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.entity.SignRecord;
+import com.qrsignature.persistence.SingleWriterQueue;
+import com.qrsignature.repository.SignRecordRepository;
+import com.qrsignature.repository.SignStatusCount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫码状态延迟写入 - 扫码时只记录待写入的签署记录ID，由后台线程定时合并为批量UPDATE提交
+ * 同一记录在两次刷新之间被多次扫码只写一次，状态缓存由SignService在扫码时立即更新
+ */
+@Slf4j
+@Component
+public class SignScanTracker {
+
+    @Value("${sign.scan.flush-interval:1s}")
+    private Duration flushInterval;
+
+    // SQLite单条语句的参数个数有上限，每条UPDATE最多包含的记录数
+    @Value("${sign.scan.max-batch:500}")
+    private int maxBatch;
+
+    @Autowired
+    private SignRecordRepository signRecordRepository;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
+
+    @Autowired
+    private SignCache<SignStatusResponse> statusCache;
+
+    @Autowired
+    private SignProgressTracker signProgressTracker;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scan-state-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        // 关闭前写入剩余的扫码状态
+        flushQuietly();
+    }
+
+    /**
+     * 记录一次扫码，等待下次刷新时写入数据库
+     */
+    public void markScanned(String signRecordId) {
+        pending.add(signRecordId);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("扫码状态写入失败，下次刷新时重试: {}", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        while (!pending.isEmpty()) {
+            List<String> ids = new ArrayList<>(maxBatch);
+            Iterator<String> iterator = pending.iterator();
+            while (iterator.hasNext() && ids.size() < maxBatch) {
+                ids.add(iterator.next());
+                iterator.remove();
+            }
+
+            List<SignStatusCount> scanned = new ArrayList<>();
+            List<String> signed;
+            try {
+                // 只迁移仍为未扫描的记录，已签署的记录不会被回退；不递增version，避免与扫码后立即确认的请求冲突
+                signed = singleWriterQueue.execute(() -> {
+                    scanned.clear();
+                    scanned.addAll(signRecordRepository.countByIdsAndStatus(ids, SignRecord.SignStatus.UNSCANNED));
+                    signRecordRepository.updateStatus(ids, SignRecord.SignStatus.SCANNED_UNCONFIRMED,
+                            LocalDateTime.now(), SignRecord.SignStatus.UNSCANNED);
+                    return signRecordRepository.findIdsByStatus(ids, SignRecord.SignStatus.SIGNED);
+                });
+            } catch (RuntimeException e) {
+                pending.addAll(ids);
+                throw e;
+            }
+
+            for (SignStatusCount count : scanned) {
+                signProgressTracker.recordTransition(count.getProjectId(), count.getFileId(),
+                        SignRecord.SignStatus.UNSCANNED, SignRecord.SignStatus.SCANNED_UNCONFIRMED, count.getRecordCount());
+            }
+
+            // 扫码与确认签署并发时缓存中可能残留扫码状态，清除后由下次查询从数据库加载
+            signed.forEach(statusCache::invalidate);
+            log.debug("写入{}条扫码状态", ids.size());
+        }
+    }
+}
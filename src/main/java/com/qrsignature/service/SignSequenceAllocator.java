@@ -0,0 +1,92 @@
+package com.qrsignature.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qrsignature.cache.SingleFlight;
+import com.qrsignature.repository.SignRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 签名序号分配器 - 按(项目, 用户, 文件)维护内存计数器，首次使用时从数据库最大序号初始化
+ * 并发生成同一文档的签署URL时保证序号唯一，且只在初始化时查询一次数据库
+ * <p>
+ * 计数器只在本节点有效，多节点部署时其他节点分配的序号由sign_record唯一索引拒绝，
+ * 调用方捕获后调用{@link #resync}从数据库同步计数器并重试
+ */
+@Component
+public class SignSequenceAllocator {
+
+    @Autowired
+    private SignRecordRepository signRecordRepository;
+
+    // 长时间未使用的计数器被回收，再次使用时重新从数据库初始化
+    private final Cache<String, AtomicInteger> counters = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    private final SingleFlight<AtomicInteger> seeding = new SingleFlight<>();
+
+    /**
+     * 分配下一个签名序号
+     */
+    public int next(String projectId, String userId, String fileId) {
+        return next(projectId, userId, fileId, 1);
+    }
+
+    /**
+     * 批量分配count个连续序号，返回其中第一个
+     */
+    public int next(String projectId, String userId, String fileId, int count) {
+        return counter(projectId, userId, fileId).addAndGet(count) - count + 1;
+    }
+
+    /**
+     * 序号被其他节点占用后，把计数器推进到数据库当前最大序号，之后分配的序号都大于已提交的序号
+     * 计数器只增不减，本节点并发请求不会因重新初始化而分配到相同序号
+     */
+    public void resync(String projectId, String userId, String fileId) {
+        Integer max = signRecordRepository.getMaxSignatureSequence(projectId, userId, fileId);
+        if (max != null) {
+            counter(projectId, userId, fileId).accumulateAndGet(max, Math::max);
+        }
+    }
+
+    /**
+     * 丢弃计数器，下次分配时从数据库最大序号重新初始化，已分配但写入失败的序号可以再次使用
+     */
+    public void reset(String projectId, String userId, String fileId) {
+        counters.invalidate(key(projectId, userId, fileId));
+    }
+
+    private AtomicInteger counter(String projectId, String userId, String fileId) {
+        String key = key(projectId, userId, fileId);
+        AtomicInteger counter = counters.getIfPresent(key);
+        if (counter != null) {
+            return counter;
+        }
+
+        // 初始化查询不在锁内执行，避免虚拟线程被固定
+        try {
+            return seeding.load(key, () -> {
+                AtomicInteger existing = counters.getIfPresent(key);
+                if (existing != null) {
+                    return existing;
+                }
+                Integer max = signRecordRepository.getMaxSignatureSequence(projectId, userId, fileId);
+                AtomicInteger seeded = new AtomicInteger(max == null ? 0 : max);
+                counters.put(key, seeded);
+                return seeded;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("初始化签名序号失败", e);
+        }
+    }
+
+    private static String key(String projectId, String userId, String fileId) {
+        return projectId + '\u0000' + userId + '\u0000' + fileId;
+    }
+}
@@ -1,34 +1,54 @@
 package com.qrsignature.service;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.qrsignature.cache.SignCache;
 import com.qrsignature.controller.dto.SignConfirmRequest;
+import com.qrsignature.controller.dto.SignUrlBatchRequest;
 import com.qrsignature.controller.vo.SignConfirmResponse;
 import com.qrsignature.controller.vo.SignStatusResponse;
 import com.qrsignature.controller.vo.SignUrlResponse;
 import com.qrsignature.controller.vo.UserSignaturesResponse;
 import com.qrsignature.entity.SignRecord;
+import com.qrsignature.entity.SignatureImage;
 import com.qrsignature.entity.UserSignature;
+import com.qrsignature.persistence.SchemaConstraints;
+import com.qrsignature.persistence.SingleWriterQueue;
 import com.qrsignature.repository.SignRecordRepository;
+import com.qrsignature.repository.SignStatusView;
 import com.qrsignature.repository.UserSignatureRepository;
+import com.qrsignature.util.DataUrlImage;
 import com.qrsignature.util.JacksonUtils;
 import com.qrsignature.util.JwtUtil;
+import com.qrsignature.util.SignatureStrokes;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+@Slf4j
 @Service
 public class SignService {
 
+    // 签名序号与其他节点冲突时的最大分配次数
+    private static final int SEQUENCE_ATTEMPTS = 5;
+
     @Autowired
     private SignRecordRepository signRecordRepository;
 
@@ -38,18 +58,62 @@ public class SignService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private SignStatusPublisher signStatusPublisher;
+
+    @Autowired
+    private SignatureImageService signatureImageService;
+
+    @Autowired
+    private SignSequenceAllocator signSequenceAllocator;
+
+    @Autowired
+    private QrCodeService qrCodeService;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
 
-    // 使用Guava Cache实现本地缓存，设置15分钟过期时间
-    private final Cache<String, Map<String, Object>> tokenCache = CacheBuilder.newBuilder()
-            .expireAfterWrite(15, TimeUnit.MINUTES)
-            .maximumSize(1000)
-            .build();
+    @Autowired
+    private SignMetrics signMetrics;
 
-    // 状态查询缓存，缓存5分钟
-    private final Cache<String, SignStatusResponse> statusCache = CacheBuilder.newBuilder()
-            .expireAfterWrite(5, TimeUnit.MINUTES)
-            .maximumSize(10000)
-            .build();
+    @Autowired
+    private SignScanTracker signScanTracker;
+
+    @Autowired
+    private UserSignatureIndex userSignatureIndex;
+
+    @Autowired
+    private SignProgressTracker signProgressTracker;
+
+    @Autowired
+    private SignatureImageProcessor signatureImageProcessor;
+
+    @Autowired
+    private SignStampService signStampService;
+
+    // token -> 签署上下文缓存，默认15分钟过期，实现见SignCacheConfig
+    @Autowired
+    private SignCache<Map<String, Object>> tokenCache;
+
+    // 状态查询缓存，默认缓存5分钟
+    @Autowired
+    private SignCache<SignStatusResponse> statusCache;
+
+    // token+幂等键 -> 确认结果，客户端重试时直接返回
+    @Autowired
+    private SignCache<SignConfirmResponse> confirmCache;
+
+    // userId -> 历史签名列表，保存新签名时失效
+    @Autowired
+    private SignCache<UserSignaturesResponse> userSignatureCache;
+
+    // 无状态模式下已使用的签署记录ID，保留到token过期
+    @Autowired
+    private SignCache<Long> revokedTokenCache;
+
+    // 无状态模式：签署记录ID作为token声明，签署上下文直接从token解析，服务端不保存token
+    @Value("${sign.token.stateless:false}")
+    private boolean statelessToken;
 
     @Value("${server.port:8080}")
     private String serverPort;
@@ -58,23 +122,21 @@ public class SignService {
     private String serverHost;
 
     public SignUrlResponse generateSignUrl(String token, String projectId, String userId, String fileId, String metaCode) {
+        return signMetrics.observe("generateSignUrl", () -> createSignUrl(token, projectId, userId, fileId, metaCode));
+    }
+
+    private SignUrlResponse createSignUrl(String token, String projectId, String userId, String fileId, String metaCode) {
         // 创建新的签署记录，支持多次签署
         SignRecord signRecord = null;
         Integer nextSequence = null;
 
-        Map<String, Object> redisData = new HashMap<>();
+        Map<String, Object> tokenData = new HashMap<>();
 
         if (!StringUtils.hasText(token) || !jwtUtil.validateToken(token)) {
-            token = jwtUtil.generateToken(projectId, userId, fileId, metaCode);
-            // 获取下一个签名序号
-            nextSequence = signRecordRepository.getMaxSignatureSequence(projectId, userId, fileId);
-            if (nextSequence == null) {
-                nextSequence = 1;
-            } else {
-                nextSequence++;
-            }
             signRecord = createSignRecord(projectId, userId, fileId, metaCode);
-            redisData = buildRedisData(projectId, userId, fileId, metaCode, signRecord.getId());
+            token = jwtUtil.generateToken(projectId, userId, fileId, metaCode, statelessToken ? signRecord.getId() : null);
+            nextSequence = signRecord.getSignatureSequence();
+            tokenData = buildTokenData(projectId, userId, fileId, metaCode, signRecord.getId());
         } else if (!jwtUtil.validateToken(token)) {
             Map<String, Object> cacheData = tokenCache.getIfPresent(token);
             if (cacheData == null) {
@@ -91,63 +153,203 @@ public class SignService {
             } else {
                 signRecord = signRecordIdEntity.get();
             }
-            redisData = buildRedisData(projectId, userId, fileId, metaCode, signRecord.getId());
+            tokenData = buildTokenData(projectId, userId, fileId, metaCode, signRecord.getId());
+        }
+
+        if (!statelessToken) {
+            tokenCache.put(token, tokenData);
         }
-        String signUrl = String.format("http://%s:%s/sign?token=Bearer %s", serverHost, serverPort, token);
+        return buildSignUrlResponse(token, signRecord, nextSequence);
+    }
 
-        tokenCache.put(token, redisData);
-        token = "Bearer " + token;
+    /**
+     * 批量生成签署URL - 先分配全部序号并在同一个写事务中写入所有签署记录，全部成功后才返回结果
+     * 写入失败时不会留下部分记录，返回结果与entries顺序一致
+     */
+    public List<SignUrlResponse> generateSignUrls(String projectId, List<SignUrlBatchRequest.Entry> entries) {
+        return signMetrics.observe("generateSignUrls", () -> createSignUrls(projectId, entries));
+    }
+
+    private List<SignUrlResponse> createSignUrls(String projectId, List<SignUrlBatchRequest.Entry> entries) {
+        List<SignRecord> signRecords = saveSignRecords(projectId, entries);
+        // 按文件合并计数，redis模式下每个文件只广播一次
+        Map<String, Long> createdByFile = new LinkedHashMap<>();
+        for (SignRecord signRecord : signRecords) {
+            createdByFile.merge(Objects.toString(signRecord.getFileId(), ""), 1L, Long::sum);
+        }
+        createdByFile.forEach((fileId, count) -> signProgressTracker.recordCreated(projectId, fileId, count));
+
+        Map<String, Map<String, Object>> tokenDataMap = new LinkedHashMap<>();
+        List<SignUrlResponse> responses = new ArrayList<>(signRecords.size());
+        for (SignRecord signRecord : signRecords) {
+            String token = jwtUtil.generateToken(projectId, signRecord.getUserId(), signRecord.getFileId(),
+                    signRecord.getMetaCode(), statelessToken ? signRecord.getId() : null);
+            tokenDataMap.put(token, buildTokenData(projectId, signRecord.getUserId(), signRecord.getFileId(),
+                    signRecord.getMetaCode(), signRecord.getId()));
+            responses.add(buildSignUrlResponse(token, signRecord, signRecord.getSignatureSequence()));
+        }
+        if (!statelessToken) {
+            tokenCache.putAll(tokenDataMap);
+        }
+        return responses;
+    }
 
+    private SignUrlResponse buildSignUrlResponse(String token, SignRecord signRecord, Integer signatureSequence) {
         SignUrlResponse response = new SignUrlResponse();
-        response.setSignUrl(signUrl);
-        response.setToken(token);
+        response.setSignUrl(buildSignUrl(token));
+        response.setToken("Bearer " + token);
         response.setStatus(signRecord.getStatus().getDescription());
-        response.setSignatureSequence(nextSequence);
+        response.setSignatureSequence(signatureSequence);
         response.setSignRecordId(signRecord.getId());
-
         return response;
     }
 
+    /**
+     * 为全部条目分配序号并批量写入签署记录，序号已被其他节点占用时同步计数器后整批重试
+     */
+    private List<SignRecord> saveSignRecords(String projectId, List<SignUrlBatchRequest.Entry> entries) {
+        // 同一(用户, 文件)一次性分配连续序号
+        Map<List<String>, Integer> counts = new LinkedHashMap<>();
+        for (SignUrlBatchRequest.Entry entry : entries) {
+            counts.merge(List.of(entry.getUserId(), entry.getFileId()), 1, Integer::sum);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            Map<List<String>, Integer> nextSequences = new HashMap<>();
+            counts.forEach((key, count) ->
+                    nextSequences.put(key, signSequenceAllocator.next(projectId, key.get(0), key.get(1), count)));
+
+            List<SignRecord> signRecords = new ArrayList<>(entries.size());
+            for (SignUrlBatchRequest.Entry entry : entries) {
+                SignRecord signRecord = new SignRecord(projectId, entry.getUserId(), entry.getFileId(), entry.getMetaCode());
+                signRecord.setSignatureSequence(nextSequences.merge(
+                        List.of(entry.getUserId(), entry.getFileId()), 1, Integer::sum) - 1);
+                signRecords.add(signRecord);
+            }
+            try {
+                // 依赖hibernate.jdbc.batch_size合并为JDBC批量插入，flush使唯一索引冲突在此抛出
+                return singleWriterQueue.execute(() -> signRecordRepository.saveAllAndFlush(signRecords));
+            } catch (RuntimeException e) {
+                if (!SchemaConstraints.isUniqueViolation(e)) {
+                    // 整批已回滚，丢弃计数器使未写入的序号可以重新分配
+                    counts.keySet().forEach(key -> signSequenceAllocator.reset(projectId, key.get(0), key.get(1)));
+                    throw e;
+                }
+                counts.keySet().forEach(key -> signSequenceAllocator.resync(projectId, key.get(0), key.get(1)));
+                if (attempt >= SEQUENCE_ATTEMPTS) {
+                    throw new RuntimeException("分配签名序号失败，请稍后重试", e);
+                }
+                log.info("签名序号已被占用，重新分配后重试, projectId={}, attempt={}", projectId, attempt);
+            }
+        }
+    }
+
     private SignRecord createSignRecord(String projectId, String userId, String fileId, String metaCode) {
-        Integer nextSequence = signRecordRepository.getMaxSignatureSequence(projectId, userId, fileId);
-        if (nextSequence == null) {
-            nextSequence = 1;
-        } else {
-            nextSequence++;
+        for (int attempt = 1; ; attempt++) {
+            // 获取下一个签名序号
+            SignRecord signRecord = new SignRecord(projectId, userId, fileId, metaCode);
+            signRecord.setSignatureSequence(signSequenceAllocator.next(projectId, userId, fileId));
+            try {
+                SignRecord saved = singleWriterQueue.execute(() -> signRecordRepository.saveAndFlush(signRecord));
+                signProgressTracker.recordCreated(projectId, fileId, 1);
+                return saved;
+            } catch (RuntimeException e) {
+                if (!SchemaConstraints.isUniqueViolation(e)) {
+                    throw e;
+                }
+                // 其他节点已使用该序号，从数据库最大序号同步计数器
+                signSequenceAllocator.resync(projectId, userId, fileId);
+                if (attempt >= SEQUENCE_ATTEMPTS) {
+                    throw new RuntimeException("分配签名序号失败，请稍后重试", e);
+                }
+                log.info("签名序号已被占用，重新分配后重试, fileId={}, attempt={}", fileId, attempt);
+            }
         }
+    }
 
-        SignRecord signRecord = new SignRecord(projectId, userId, fileId, metaCode);
-        signRecord.setSignatureSequence(nextSequence);
-        return signRecordRepository.save(signRecord);
+    private String buildSignUrl(String token) {
+        return String.format("http://%s:%s/sign?token=Bearer %s", serverHost, serverPort, token);
     }
 
-    private Map<String, Object> buildRedisData(String projectId, String userId, String fileId, String metaCode, String signRecordId) {
-        Map<String, Object> redisData = new HashMap<>();
-        redisData.put("projectId", projectId);
-        redisData.put("userId", userId);
-        redisData.put("fileId", fileId);
-        redisData.put("metaCode", metaCode);
-        redisData.put("signRecordId", signRecordId);
-        return redisData;
+    /**
+     * 生成签署二维码图片，内容与签署URL一致
+     */
+    public QrCodeService.QrCodeImage getQrCode(String token, String signRecordId, String format, Integer size) {
+        Map<String, Object> cacheData = findTokenData(token);
+        if (cacheData == null) {
+            throw new RuntimeException("token已过期或不存在");
+        }
+        if (!signRecordId.equals(cacheData.get("signRecordId"))) {
+            throw new RuntimeException("token与签署记录不匹配");
+        }
+        return qrCodeService.render(token, buildSignUrl(token), format, size);
+    }
+
+    private Map<String, Object> buildTokenData(String projectId, String userId, String fileId, String metaCode, String signRecordId) {
+        Map<String, Object> tokenData = new HashMap<>();
+        tokenData.put("projectId", projectId);
+        tokenData.put("userId", userId);
+        tokenData.put("fileId", fileId);
+        tokenData.put("metaCode", metaCode);
+        tokenData.put("signRecordId", signRecordId);
+        return tokenData;
+    }
+
+    /**
+     * 获取token对应的签署上下文，token无效、已过期或已使用时返回null
+     * 无状态模式下直接取自token声明，只查询本地的已使用记录
+     */
+    private Map<String, Object> findTokenData(String token) {
+        if (!statelessToken) {
+            return tokenCache.getIfPresent(token);
+        }
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        String signRecordId = claims.get("signRecordId", String.class);
+        if (signRecordId == null || revokedTokenCache.getIfPresent(signRecordId) != null) {
+            return null;
+        }
+        return buildTokenData(claims.get("projectId", String.class), claims.get("userId", String.class),
+                claims.get("fileId", String.class), claims.get("metaCode", String.class), signRecordId);
+    }
+
+    /**
+     * 签署完成后作废token
+     */
+    private void revokeToken(String token, String signRecordId) {
+        if (!statelessToken) {
+            tokenCache.invalidate(token);
+            return;
+        }
+        revokedTokenCache.put(signRecordId, jwtUtil.extractExpiration(token).getTime());
     }
 
     public SignStatusResponse checkSignStatus(String signRecordId) {
+        return signMetrics.observe("checkSignStatus", () -> loadSignStatus(signRecordId));
+    }
+
+    private SignStatusResponse loadSignStatus(String signRecordId) {
         try {
-            // 使用Guava Cache的原子性get操作，确保只有一个线程会执行数据库查询
+            // 缓存未命中时加载，本地缓存下同一key只有一个线程会执行数据库查询
             return statusCache.get(signRecordId, () -> {
-                Optional<SignRecord> signRecord = signRecordRepository.findById(signRecordId);
+                SignStatusView record = signRecordRepository.findStatusById(signRecordId)
+                        .orElseThrow(() -> new RuntimeException("签署记录不存在"));
 
-                if (signRecord.isEmpty()) {
-                    throw new RuntimeException("签署记录不存在");
-                }
-
-                SignRecord record = signRecord.get();
                 SignStatusResponse response = new SignStatusResponse();
                 response.setSignRecordId(signRecordId);
                 response.setStatus(record.getStatus().getDescription());
+                response.setSignatureSequence(record.getSignatureSequence());
 
                 if (record.getStatus() == SignRecord.SignStatus.SIGNED) {
-                    response.setSignatureBase64(record.getSignatureBase64());
+                    response.setSignatureImageId(record.getSignatureImageId());
+                    if (record.getStampStatus() != null) {
+                        response.setStampStatus(record.getStampStatus().getDescription());
+                        response.setStampedDocumentId(record.getStampedDocumentId());
+                    }
                 }
 
                 return response;
@@ -157,12 +359,142 @@ public class SignService {
         }
     }
 
+    /**
+     * 记录扫码 - 未扫描的记录迁移为已扫描未签署，立即更新状态缓存并推送，数据库写入由SignScanTracker合并延迟提交
+     */
+    public SignStatusResponse markScanned(String token) {
+        return signMetrics.observe("markScanned", () -> recordScan(token));
+    }
+
+    private SignStatusResponse recordScan(String token) {
+        if (!jwtUtil.validateToken(token)) {
+            throw new RuntimeException("无效的token");
+        }
+
+        Map<String, Object> cacheData = findTokenData(token);
+        if (cacheData == null) {
+            throw new RuntimeException("token已过期或不存在");
+        }
+
+        String signRecordId = cacheData.get("signRecordId").toString();
+        SignStatusResponse current = loadSignStatus(signRecordId);
+        // 重复扫码或已签署时不产生写入
+        if (!SignRecord.SignStatus.UNSCANNED.getDescription().equals(current.getStatus())) {
+            return current;
+        }
+
+        SignStatusResponse scanned = new SignStatusResponse();
+        scanned.setSignRecordId(signRecordId);
+        scanned.setStatus(SignRecord.SignStatus.SCANNED_UNCONFIRMED.getDescription());
+        scanned.setSignatureSequence(current.getSignatureSequence());
+        statusCache.put(signRecordId, scanned);
+        signScanTracker.markScanned(signRecordId);
+        signStatusPublisher.publish(scanned);
+        return scanned;
+    }
+
+    /**
+     * 获取已签署记录的签名图片
+     */
+    public SignatureImage getSignatureImage(String signatureImageId) {
+        return signatureImageService.findImage(signatureImageId)
+                .orElseThrow(() -> new RuntimeException("签名图片不存在"));
+    }
+
+    /**
+     * 获取签名缩略图
+     */
+    public SignatureImage getSignatureThumbnail(String signatureImageId) {
+        return signatureImageService.findThumbnail(signatureImageId)
+                .orElseThrow(() -> new RuntimeException("签名图片不存在"));
+    }
+
+    /**
+     * 订阅签署状态变更，连接登记后推送当前状态
+     */
+    public SseEmitter subscribeSignStatus(String signRecordId) {
+        return signStatusPublisher.subscribe(signRecordId, () -> checkSignStatus(signRecordId));
+    }
+
     public SignConfirmResponse confirmSign(String token, SignConfirmRequest request) {
+        return confirmSign(token, request, null);
+    }
+
+    /**
+     * 确认签署 - 携带幂等键时，同一token与幂等键的重复请求返回首次确认的结果，并发的重复请求只执行一次
+     * 幂等键随签署记录一同提交，确认结果缓存淘汰或重启后仍可重放
+     */
+    public SignConfirmResponse confirmSign(String token, SignConfirmRequest request, String idempotencyKey) {
+        return signMetrics.observe("confirmSign", () -> {
+            if (!StringUtils.hasText(idempotencyKey)) {
+                return completeSign(token, request, null);
+            }
+            String confirmKey = confirmCacheKey(token, idempotencyKey);
+            try {
+                return confirmCache.get(confirmKey, () -> {
+                    SignConfirmResponse confirmed = loadConfirmedSign(confirmKey);
+                    return confirmed != null ? confirmed : completeSign(token, request, confirmKey);
+                });
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new RuntimeException("签署确认失败", e.getCause());
+            }
+        });
+    }
+
+    /**
+     * 查询幂等键对应的已完成确认结果，缓存未命中时从签署记录恢复，不存在时返回null
+     */
+    public SignConfirmResponse findConfirmedSign(String token, String idempotencyKey) {
+        String confirmKey = confirmCacheKey(token, idempotencyKey);
+        SignConfirmResponse confirmed = confirmCache.getIfPresent(confirmKey);
+        if (confirmed == null) {
+            confirmed = loadConfirmedSign(confirmKey);
+            if (confirmed != null) {
+                confirmCache.put(confirmKey, confirmed);
+            }
+        }
+        return confirmed;
+    }
+
+    private String confirmCacheKey(String token, String idempotencyKey) {
+        return SignatureImageService.sha256((token + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按幂等键查找已签署的记录，重建首次确认时返回的结果
+     */
+    private SignConfirmResponse loadConfirmedSign(String confirmKey) {
+        return signRecordRepository.findFirstByConfirmKeyAndStatus(confirmKey, SignRecord.SignStatus.SIGNED)
+                .map(signRecord -> {
+                    DataUrlImage signatureImage = signRecord.getSignatureImageId() == null ? null
+                            : signatureImageService.find(signRecord.getSignatureImageId()).orElse(null);
+                    return buildConfirmResponse(signRecord, signatureImage);
+                })
+                .orElse(null);
+    }
+
+    private SignConfirmResponse buildConfirmResponse(SignRecord signRecord, DataUrlImage signatureImage) {
+        SignConfirmResponse response = new SignConfirmResponse();
+        response.setMessage("签署成功");
+        response.setStatus(SignRecord.SignStatus.SIGNED.getDescription());
+        // 笔迹数据不在确认时栅格化，客户端以本地画布预览，或通过签名图片接口获取
+        if (signatureImage != null && !SignatureStrokes.isStrokes(signatureImage.getContentType())) {
+            response.setSignatureBase64(signatureImage);
+        }
+        response.setSignRecordId(signRecord.getId());
+        response.setSignatureSequence(signRecord.getSignatureSequence());
+        return response;
+    }
+
+    private SignConfirmResponse completeSign(String token, SignConfirmRequest request, String confirmKey) {
         if (!jwtUtil.validateToken(token)) {
             throw new RuntimeException("无效的token");
         }
 
-        Map<String, Object> cacheData = tokenCache.getIfPresent(token);
+        Map<String, Object> cacheData = findTokenData(token);
         if (cacheData == null) {
             throw new RuntimeException("token已过期或不存在");
         }
@@ -175,75 +507,150 @@ public class SignService {
             throw new RuntimeException("该签署请求已完成");
         }
 
-        String signatureBase64 = request.getSignatureBase64();
+        DataUrlImage signatureImage = null;
+        String historyImageId = null;
+        boolean saveForReuse = false;
 
-        // 如果使用历史签名
+        // 如果使用历史签名，从该用户的历史签名缓存中查找，只能使用本人的签名
         if (request.getUserSignatureId() != null && !request.getUserSignatureId().isEmpty()) {
-            Optional<UserSignature> userSignature = userSignatureRepository.findById(request.getUserSignatureId());
+            Optional<UserSignaturesResponse.SignatureInfo> userSignature =
+                    findUserSignature(signRecord.getUserId(), request.getUserSignatureId());
             if (userSignature.isPresent()) {
-                signatureBase64 = userSignature.get().getSignatureBase64();
+                historyImageId = userSignature.get().getSignatureImageId();
+                signatureImage = signatureImageService.find(historyImageId)
+                        .orElseThrow(() -> new RuntimeException("历史签名图片不存在"));
             }
         } else if (request.getSaveForReuse() != null && request.getSaveForReuse()) {
             // 保存用户签名以便重用，先检查是否已存在签名
             if (!canSaveUserSignature(signRecord.getUserId())) {
                 throw new RuntimeException("该用户已存在历史签名，不可重复保存");
             }
-            saveUserSignature(signRecord.getUserId(), signatureBase64);
+            saveForReuse = true;
         }
 
-        signRecord.setStatus(SignRecord.SignStatus.SIGNED);
-        signRecord.setSignatureBase64(signatureBase64);
-        signRecordRepository.save(signRecord);
+        if (signatureImage == null && request.getSignatureImage() == null && request.getSignatureBase64() == null) {
+            throw new RuntimeException("历史签名不存在");
+        }
+        if (signatureImage == null) {
+            signatureImage = request.getSignatureImage() != null
+                    ? request.getSignatureImage() : DataUrlImage.parse(request.getSignatureBase64());
+            // 新上传的签名裁剪、缩放并量化后再保存，笔迹数据校验后原样保存
+            signatureImage = signatureImageProcessor.normalize(signatureImage);
+        }
 
-        statusCache.invalidate(signRecordId);
-        tokenCache.invalidate(token);
+        // 签名图片、历史签名与签署记录在同一个写事务中提交
+        DataUrlImage uploadedImage = signatureImage;
+        String reusedImageId = historyImageId;
+        boolean saveUserSignature = saveForReuse;
+        SignRecord.StampStatus stampStatus = signStampService.isEnabled() ? SignRecord.StampStatus.PENDING : null;
+        // 写线程内读取提交前的状态，扫码状态可能在读取签署记录之后才写入
+        AtomicReference<SignRecord.SignStatus> previousStatus = new AtomicReference<>(signRecord.getStatus());
+        String signatureImageId;
+        try {
+            signatureImageId = singleWriterQueue.execute(() -> {
+                signRecordRepository.findStatusById(signRecordId)
+                        .ifPresent(current -> previousStatus.set(current.getStatus()));
+                String imageId = reusedImageId != null ? reusedImageId : signatureImageService.save(uploadedImage);
+                if (saveUserSignature) {
+                    saveUserSignature(signRecord.getUserId(), imageId);
+                }
+                signRecord.setStatus(SignRecord.SignStatus.SIGNED);
+                signRecord.setSignatureImageId(imageId);
+                signRecord.setStampStatus(stampStatus);
+                signRecord.setConfirmKey(confirmKey);
+                // 立即flush校验版本号，同一批次合并提交的并发确认也会冲突
+                signRecordRepository.saveAndFlush(signRecord);
+                return imageId;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw new RuntimeException("该签署请求已完成");
+        }
+        signProgressTracker.recordTransition(signRecord.getProjectId(), signRecord.getFileId(),
+                previousStatus.get(), SignRecord.SignStatus.SIGNED, 1);
+        if (saveUserSignature) {
+            userSignatureIndex.add(signRecord.getUserId());
+            userSignatureCache.invalidate(signRecord.getUserId());
+        }
 
-        SignConfirmResponse response = new SignConfirmResponse();
-        response.setMessage("签署成功");
-        response.setStatus(SignRecord.SignStatus.SIGNED.getDescription());
-        response.setSignatureBase64(signatureBase64);
-        response.setSignRecordId(signRecordId);
-        response.setSignatureSequence(signRecord.getSignatureSequence());
+        // 直接写入最新状态，轮询方无需回查数据库，同时推送给订阅方
+        SignStatusResponse statusResponse = new SignStatusResponse();
+        statusResponse.setSignRecordId(signRecordId);
+        statusResponse.setStatus(SignRecord.SignStatus.SIGNED.getDescription());
+        statusResponse.setSignatureSequence(signRecord.getSignatureSequence());
+        statusResponse.setSignatureImageId(signatureImageId);
+        if (stampStatus != null) {
+            statusResponse.setStampStatus(stampStatus.getDescription());
+        }
+        statusCache.put(signRecordId, statusResponse);
+        revokeToken(token, signRecordId);
+        signStatusPublisher.publish(statusResponse);
+        // 签名盖章到源文件异步执行，进度通过状态查询获取
+        signStampService.submit(signRecordId);
 
-        return response;
+        return buildConfirmResponse(signRecord, signatureImage);
     }
 
     /**
-     * 检查用户是否可以保存签名
+     * 检查用户是否可以保存签名，多数未保存过签名的用户由内存索引直接判定
      */
     public boolean canSaveUserSignature(String userId) {
-        return !userSignatureRepository.existsByUserId(userId);
+        return !userSignatureIndex.exists(userId);
     }
 
     /**
      * 保存用户签名以便重用
      */
-    private void saveUserSignature(String userId, String signatureBase64) {
-        UserSignature userSignature = new UserSignature(userId, signatureBase64);
-        userSignatureRepository.save(userSignature);
+    private void saveUserSignature(String userId, String signatureImageId) {
+        UserSignature userSignature = new UserSignature(userId, signatureImageId);
+        try {
+            // 立即flush，唯一约束冲突在此处抛出，而不是混在签署记录的写入中
+            userSignatureRepository.saveAndFlush(userSignature);
+        } catch (RuntimeException e) {
+            if (!(e instanceof DataIntegrityViolationException) && !SchemaConstraints.isUniqueViolation(e)) {
+                throw e;
+            }
+            // 其他节点已保存该用户的签名，本节点的内存索引未及时得知
+            userSignatureIndex.add(userId);
+            throw new RuntimeException("该用户已存在历史签名，不可重复保存");
+        }
     }
 
     /**
      * 获取用户所有签名
      */
     public UserSignaturesResponse getUserSignatures(String userId) {
-        List<UserSignature> signatures = userSignatureRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        
-        UserSignaturesResponse response = new UserSignaturesResponse();
-        response.setUserId(userId);
-        
-        List<UserSignaturesResponse.SignatureInfo> signatureInfos = signatures.stream()
-                .map(signature -> {
-                    UserSignaturesResponse.SignatureInfo info = new UserSignaturesResponse.SignatureInfo();
-                    info.setId(signature.getId());
-                    info.setSignatureBase64(signature.getSignatureBase64());
-                    info.setCreatedAt(signature.getCreatedAt());
-                    info.setUpdatedAt(signature.getUpdatedAt());
-                    return info;
-                })
-                .toList();
-        
-        response.setSignatures(signatureInfos);
-        return response;
+        return signMetrics.observe("getUserSignatures", () -> loadUserSignatures(userId));
+    }
+
+    /**
+     * 从历史签名缓存中查找用户的某个签名
+     */
+    public Optional<UserSignaturesResponse.SignatureInfo> findUserSignature(String userId, String userSignatureId) {
+        return loadUserSignatures(userId).getSignatures().stream()
+                .filter(signature -> signature.getId().equals(userSignatureId))
+                .findFirst();
+    }
+
+    private UserSignaturesResponse loadUserSignatures(String userId) {
+        try {
+            // 列表只含签名ID与图片ID，图片由客户端按需获取
+            return userSignatureCache.get(userId, () -> {
+                UserSignaturesResponse response = new UserSignaturesResponse();
+                response.setUserId(userId);
+                response.setSignatures(userSignatureRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                        .map(signature -> {
+                            UserSignaturesResponse.SignatureInfo info = new UserSignaturesResponse.SignatureInfo();
+                            info.setId(signature.getId());
+                            info.setSignatureImageId(signature.getSignatureImageId());
+                            info.setCreatedAt(signature.getCreatedAt());
+                            info.setUpdatedAt(signature.getUpdatedAt());
+                            return info;
+                        })
+                        .toList());
+                return response;
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException("查询用户签名失败", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,332 @@
+package com.qrsignature.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.qrsignature.cache.SignCache;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.entity.SignRecord;
+import com.qrsignature.entity.SignatureImage;
+import com.qrsignature.persistence.SchedulerLock;
+import com.qrsignature.persistence.SingleWriterQueue;
+import com.qrsignature.repository.SignRecordRepository;
+import com.qrsignature.repository.SignStampView;
+import com.qrsignature.util.DocumentStamper;
+import com.qrsignature.util.JacksonUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 签名盖章 - 签署完成后在有界线程池中把同一文件的全部已签署签名绘制到源文件上，结果按内容哈希存储
+ * <p>
+ * 源文件为 {document-dir}/{projectId}/{fileId}.png|jpg，签名位置为同目录下的 {fileId}.json，
+ * 以metaCode为键: {"META-CODE-001": {"x": 100, "y": 200, "width": 300, "height": 120}}，单位为源文件像素
+ * <p>
+ * 队列已满时不阻塞确认请求，记录保持盖章中，由补偿任务在队列空闲时重新提交，重启后未完成的记录同样由补偿任务恢复
+ * <p>
+ * 多个节点共用同一数据库时，补偿任务只在持有定时任务锁的节点上执行；
+ * 与其他节点正在处理的记录重复盖章时结果按内容哈希存储，不会产生重复文件
+ */
+@Slf4j
+@Service
+public class SignStampService {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private static final Pattern DOCUMENT_ID_PATTERN = Pattern.compile("[0-9a-f]{64}\\.(png|jpg)");
+
+    private static final String[] SOURCE_EXTENSIONS = {"png", "jpg", "jpeg"};
+
+    private static final String SWEEP_LOCK = "stamp-sweep";
+
+    @Value("${sign.stamp.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sign.stamp.document-dir:documents}")
+    private Path documentDir;
+
+    @Value("${sign.stamp.output-dir:stamped}")
+    private Path outputDir;
+
+    @Value("${sign.stamp.workers:2}")
+    private int workers;
+
+    @Value("${sign.stamp.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${sign.stamp.sweep-interval:30s}")
+    private Duration sweepInterval;
+
+    @Autowired
+    private SignRecordRepository signRecordRepository;
+
+    @Autowired
+    private SignatureImageService signatureImageService;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
+
+    @Autowired
+    private SchedulerLock schedulerLock;
+
+    @Autowired
+    private SignCache<SignStatusResponse> statusCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 已提交到线程池尚未完成的记录，补偿任务不重复提交
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        documentDir = documentDir.toAbsolutePath().normalize();
+        outputDir = outputDir.toAbsolutePath().normalize();
+        Files.createDirectories(outputDir);
+
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "signature-stamp-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("sign.stamp.queue", executor, pool -> pool.getQueue().size())
+                .description("等待盖章的任务数")
+                .register(meterRegistry);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stamp-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = sweepInterval.toMillis();
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        // 未完成的记录保持盖章中，重启后由补偿任务重新提交
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+        schedulerLock.unlock(SWEEP_LOCK);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交盖章任务，队列已满时留给补偿任务
+     */
+    public void submit(String signRecordId) {
+        if (!enabled || !inFlight.add(signRecordId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    stamp(signRecordId);
+                } finally {
+                    inFlight.remove(signRecordId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(signRecordId);
+            meterRegistry.counter("sign.stamp.deferred").increment();
+            log.debug("盖章队列已满，等待补偿任务提交, signRecordId={}", signRecordId);
+        }
+    }
+
+    /**
+     * 获取盖章后的文件，documentId不合法或文件不存在时返回空
+     */
+    public Optional<Path> findStampedDocument(String documentId) {
+        if (documentId == null || !DOCUMENT_ID_PATTERN.matcher(documentId).matches()) {
+            return Optional.empty();
+        }
+        Path path = outputDir.resolve(documentId.substring(0, 2)).resolve(documentId);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private void sweepQuietly() {
+        try {
+            // 锁有效期为两个补偿间隔，持有节点退出后由其他节点接管
+            if (!schedulerLock.tryLock(SWEEP_LOCK, sweepInterval.multipliedBy(2))) {
+                return;
+            }
+            int free = executor.getQueue().remainingCapacity();
+            if (free == 0) {
+                return;
+            }
+            signRecordRepository.findIdsByStampStatus(SignRecord.StampStatus.PENDING, PageRequest.of(0, free))
+                    .forEach(this::submit);
+        } catch (Exception e) {
+            log.warn("盖章补偿任务执行失败: {}", e.getMessage());
+        }
+    }
+
+    private void stamp(String signRecordId) {
+        long start = System.nanoTime();
+        SignRecord.StampStatus status;
+        String documentId = null;
+        try {
+            SignRecord record = signRecordRepository.findById(signRecordId).orElse(null);
+            if (record == null || record.getStatus() != SignRecord.SignStatus.SIGNED) {
+                return;
+            }
+            Optional<Path> source = findSource(record.getProjectId(), record.getFileId());
+            if (source.isEmpty()) {
+                status = SignRecord.StampStatus.NO_DOCUMENT;
+            } else {
+                documentId = stampDocument(record, source.get());
+                status = SignRecord.StampStatus.STAMPED;
+            }
+        } catch (Exception e) {
+            log.warn("签名盖章失败, signRecordId={}: {}", signRecordId, e.getMessage());
+            status = SignRecord.StampStatus.FAILED;
+        }
+
+        Timer.builder("sign.stamp")
+                .description("签名盖章耗时")
+                .tag("outcome", status.name().toLowerCase())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        SignRecord.StampStatus result = status;
+        String stampedDocumentId = documentId;
+        singleWriterQueue.execute(() -> signRecordRepository.updateStamp(signRecordId, result, stampedDocumentId));
+        // 状态缓存中为盖章中，清除后由下次查询从数据库加载
+        statusCache.invalidate(signRecordId);
+    }
+
+    /**
+     * 把同一文件已签署的全部签名绘制到源文件上，返回结果文件ID
+     */
+    private String stampDocument(SignRecord record, Path source) throws IOException {
+        Map<String, Placement> placements = readPlacements(source);
+        if (!placements.containsKey(record.getMetaCode())) {
+            throw new IllegalStateException("签名位置未定义: " + record.getMetaCode());
+        }
+
+        BufferedImage document = DocumentStamper.read(source);
+        List<SignStampView> stamps = signRecordRepository.findStamps(record.getProjectId(), record.getFileId(),
+                SignRecord.SignStatus.SIGNED);
+        for (SignStampView stamp : stamps) {
+            Placement placement = placements.get(stamp.getMetaCode());
+            if (placement == null) {
+                continue;
+            }
+            SignatureImage signature = signatureImageService.findImage(stamp.getSignatureImageId())
+                    .orElseThrow(() -> new IllegalStateException("签名图片不存在"));
+            DocumentStamper.draw(document, signature.getData(),
+                    placement.getX(), placement.getY(), placement.getWidth(), placement.getHeight());
+        }
+
+        String extension = source.getFileName().toString().endsWith(".png") ? "png" : "jpg";
+        return store(document, extension);
+    }
+
+    /**
+     * 写入临时文件后按内容哈希命名，相同内容只保留一份
+     */
+    private String store(BufferedImage document, String extension) throws IOException {
+        Path temp = Files.createTempFile(outputDir, "stamp-", ".tmp");
+        try {
+            DocumentStamper.write(document, "png".equals(extension) ? "png" : "jpeg", temp);
+            String documentId = DocumentStamper.sha256(temp) + "." + extension;
+            Path target = outputDir.resolve(documentId.substring(0, 2)).resolve(documentId);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    log.debug("盖章文件已存在: {}", documentId);
+                }
+            }
+            return documentId;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Optional<Path> findSource(String projectId, String fileId) {
+        if (!isSafeName(projectId) || !isSafeName(fileId)) {
+            return Optional.empty();
+        }
+        Path directory = documentDir.resolve(projectId);
+        for (String extension : SOURCE_EXTENSIONS) {
+            Path path = directory.resolve(fileId + "." + extension);
+            if (Files.isRegularFile(path)) {
+                return Optional.of(path);
+            }
+        }
+        if (Files.isRegularFile(directory.resolve(fileId + ".pdf"))) {
+            throw new IllegalStateException("暂不支持PDF源文件");
+        }
+        return Optional.empty();
+    }
+
+    private Map<String, Placement> readPlacements(Path source) throws IOException {
+        String name = source.getFileName().toString();
+        Path path = source.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".json");
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalStateException("签名位置文件不存在: " + path.getFileName());
+        }
+        return JacksonUtils.mapper.readValue(path.toFile(), new TypeReference<Map<String, Placement>>() {
+        });
+    }
+
+    private static boolean isSafeName(String name) {
+        return name != null && NAME_PATTERN.matcher(name).matches() && !name.startsWith(".");
+    }
+
+    /**
+     * 签名位置框，单位为源文件像素
+     */
+    @Data
+    static class Placement {
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+    }
+}
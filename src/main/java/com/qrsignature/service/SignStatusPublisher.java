@@ -0,0 +1,128 @@
+package com.qrsignature.service;
+
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.entity.SignRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 签署状态推送 - 按signRecordId维护SSE连接，状态变更时主动推送，替代客户端轮询
+ */
+@Slf4j
+@Component
+public class SignStatusPublisher {
+
+    private static final String EVENT_NAME = "status";
+
+    // 连接超时时间与token有效期一致，token过期后连接自然关闭
+    @Value("${jwt.expiration}")
+    private long timeout;
+
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    // redis模式下把状态变更转发给其他节点，见RedisSignStatusRelay
+    private volatile Consumer<SignStatusResponse> relay;
+
+    /**
+     * 订阅签署状态，先登记连接再读取并推送当前状态，读取期间发布的状态变更不会丢失
+     */
+    public SseEmitter subscribe(String signRecordId, Supplier<SignStatusResponse> currentStatus) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        emitters.compute(signRecordId, (key, list) -> {
+            if (list == null) {
+                list = new CopyOnWriteArrayList<>();
+            }
+            list.add(emitter);
+            return list;
+        });
+
+        Runnable remove = () -> removeEmitter(signRecordId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        SignStatusResponse current;
+        try {
+            current = currentStatus.get();
+        } catch (RuntimeException e) {
+            removeEmitter(signRecordId, emitter);
+            throw e;
+        }
+
+        // 发送失败(包括已由publish推送已签署并关闭)时移除连接；已签署的记录无需保持连接
+        if (!send(emitter, current)) {
+            removeEmitter(signRecordId, emitter);
+        } else if (isSigned(current)) {
+            removeEmitter(signRecordId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    public void setRelay(Consumer<SignStatusResponse> relay) {
+        this.relay = relay;
+    }
+
+    /**
+     * 推送状态变更给本节点的订阅方，多节点部署时同时转发给其他节点
+     */
+    public void publish(SignStatusResponse response) {
+        deliver(response);
+        Consumer<SignStatusResponse> current = relay;
+        if (current != null) {
+            current.accept(response);
+        }
+    }
+
+    /**
+     * 向本节点订阅该签署记录的所有客户端推送最新状态
+     * 已签署时先原子移除整个连接列表再推送，之后登记的连接读取到的当前状态已是已签署
+     */
+    public void deliver(SignStatusResponse response) {
+        boolean signed = isSigned(response);
+        List<SseEmitter> list = signed
+                ? emitters.remove(response.getSignRecordId())
+                : emitters.get(response.getSignRecordId());
+        if (list == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : list) {
+            if (send(emitter, response) && signed) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, SignStatusResponse response) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(response));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("推送签署状态失败, signRecordId={}: {}", response.getSignRecordId(), e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void removeEmitter(String signRecordId, SseEmitter emitter) {
+        emitters.computeIfPresent(signRecordId, (key, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private boolean isSigned(SignStatusResponse response) {
+        return SignRecord.SignStatus.SIGNED.getDescription().equals(response.getStatus());
+    }
+}
@@ -0,0 +1,97 @@
+package com.qrsignature.service;
+
+import com.qrsignature.persistence.SingleWriterQueue;
+import com.qrsignature.util.DataUrlImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 旧版数据迁移 - 将signature_base64文本列中的签名图片迁移到signature_image表后删除旧列
+ * <p>
+ * 按id分批读取，每批的图片与记录更新在同一个写事务中提交；存在无法迁移的记录时保留旧列，修复数据后重启即可继续迁移
+ */
+@Slf4j
+@Component
+public class SignatureImageMigration implements ApplicationRunner {
+
+    private static final String LEGACY_COLUMN = "signature_base64";
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SignatureImageService signatureImageService;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate("sign_record");
+        migrate("user_signatures");
+    }
+
+    private void migrate(String table) {
+        List<String> columns = jdbcTemplate.queryForList("SELECT name FROM pragma_table_info(?)", String.class, table);
+        if (!columns.contains(LEGACY_COLUMN)) {
+            return;
+        }
+
+        String select = "SELECT id, " + LEGACY_COLUMN + " FROM " + table
+                + " WHERE " + LEGACY_COLUMN + " IS NOT NULL AND signature_image_id IS NULL AND id > ? ORDER BY id LIMIT ?";
+        String lastId = "";
+        int migrated = 0;
+        int failed = 0;
+        try {
+            while (true) {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(select, lastId, BATCH_SIZE);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                int batchFailed = singleWriterQueue.execute(() -> migrateBatch(table, rows));
+                failed += batchFailed;
+                migrated += rows.size() - batchFailed;
+                lastId = (String) rows.get(rows.size() - 1).get("id");
+            }
+        } catch (RuntimeException e) {
+            log.error("签名图片迁移中断，保留旧列 {}.{}", table, LEGACY_COLUMN, e);
+            return;
+        }
+
+        if (failed > 0) {
+            log.warn("{}条签名图片迁移失败，保留旧列 {}.{}", failed, table, LEGACY_COLUMN);
+            return;
+        }
+        singleWriterQueue.execute(() -> jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + LEGACY_COLUMN));
+        log.info("已迁移{}条签名图片并删除旧列 {}.{}", migrated, table, LEGACY_COLUMN);
+    }
+
+    /**
+     * 在写线程的事务中迁移一批记录，返回无法解析的记录数
+     */
+    private int migrateBatch(String table, List<Map<String, Object>> rows) {
+        int failed = 0;
+        for (Map<String, Object> row : rows) {
+            DataUrlImage image;
+            try {
+                image = DataUrlImage.parse((String) row.get(LEGACY_COLUMN));
+            } catch (IllegalArgumentException e) {
+                log.warn("签名图片迁移失败, table={}, id={}: {}", table, row.get("id"), e.getMessage());
+                failed++;
+                continue;
+            }
+            String imageId = signatureImageService.save(image);
+            jdbcTemplate.update("UPDATE " + table + " SET signature_image_id = ? WHERE id = ?", imageId, row.get("id"));
+        }
+        return failed;
+    }
+}
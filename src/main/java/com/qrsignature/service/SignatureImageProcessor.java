@@ -0,0 +1,176 @@
+package com.qrsignature.service;
+
+import com.qrsignature.util.DataUrlImage;
+import com.qrsignature.util.SignatureImageCompressor;
+import com.qrsignature.util.SignatureStrokes;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 签名图片规范化 - 保存前在有界线程池中裁剪、缩放并量化签名图片
+ * 线程池与队列已满时不等待，只在调用线程中读取图片头校验格式与尺寸后保存原图
+ * 不是PNG/JPEG、尺寸超过上限或无法解码的图片拒绝保存，不回退为保存原图
+ * 笔迹数据原样保存，取图时按相同的分辨率与量化参数栅格化
+ */
+@Slf4j
+@Component
+public class SignatureImageProcessor {
+
+    private static final double CSS_DPI = 96.0;
+
+    @Value("${sign.image.compress:true}")
+    private boolean enabled;
+
+    @Value("${sign.image.source-dpi:96}")
+    private int sourceDpi;
+
+    @Value("${sign.image.target-dpi:200}")
+    private int targetDpi;
+
+    @Value("${sign.image.bits:2}")
+    private int bits;
+
+    @Value("${sign.image.ink-threshold:24}")
+    private int inkThreshold;
+
+    @Value("${sign.image.padding:4}")
+    private int padding;
+
+    @Value("${sign.image.max-pixels:8000000}")
+    private long maxPixels;
+
+    @Value("${sign.image.workers:0}")
+    private int workers;
+
+    @Value("${sign.image.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer compressedTimer;
+
+    private Timer unchangedTimer;
+
+    private DistributionSummary savedBytes;
+
+    private Timer rasterizeTimer;
+
+    @PostConstruct
+    public void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "signature-image-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        compressedTimer = compressTimer("compressed");
+        unchangedTimer = compressTimer("unchanged");
+        savedBytes = DistributionSummary.builder("sign.image.saved")
+                .description("签名图片压缩节省的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        rasterizeTimer = Timer.builder("sign.image.rasterize")
+                .description("签名笔迹栅格化耗时")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private Timer compressTimer(String outcome) {
+        return Timer.builder("sign.image.compress")
+                .description("签名图片压缩耗时，unchanged为无法压缩而保留原图")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 规范化上传的签名图片，没有笔迹或压缩后不更小时返回原图；笔迹数据只校验格式
+     *
+     * @throws IllegalArgumentException 图片格式不支持、尺寸超过上限或无法解码
+     */
+    public DataUrlImage normalize(DataUrlImage image) {
+        if (SignatureStrokes.isStrokes(image.getContentType())) {
+            SignatureStrokes.decode(image.getData());
+            return image;
+        }
+        if (!enabled) {
+            SignatureImageCompressor.checkImage(image.getData(), maxPixels);
+            return image;
+        }
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> compress(image.getData()));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("sign.image.compress.rejected").increment();
+            log.debug("签名图片处理队列已满，校验后保存原图");
+            SignatureImageCompressor.checkImage(image.getData(), maxPixels);
+            return image;
+        }
+
+        try {
+            byte[] compressed = future.get();
+            if (compressed == null) {
+                return image;
+            }
+            savedBytes.record(image.getData().length - compressed.length);
+            return new DataUrlImage(DataUrlImage.DEFAULT_CONTENT_TYPE, compressed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("签名图片处理被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            log.warn("签名图片压缩失败: {}", e.getCause().toString());
+            throw new IllegalStateException("签名图片处理失败", e.getCause());
+        }
+    }
+
+    /**
+     * 将笔迹绘制为PNG，在调用线程中执行，结果由调用方缓存
+     */
+    public byte[] rasterize(byte[] strokes) {
+        return rasterizeTimer.record(() -> {
+            BufferedImage canvas = SignatureStrokes.decode(strokes).render(targetDpi / CSS_DPI);
+            byte[] png = canvas == null ? null
+                    : SignatureImageCompressor.compress(canvas, targetDpi, targetDpi, bits, inkThreshold, padding);
+            if (png == null) {
+                throw new IllegalArgumentException("签名笔迹不在画布内");
+            }
+            return png;
+        });
+    }
+
+    private byte[] compress(byte[] data) {
+        long start = System.nanoTime();
+        byte[] compressed = SignatureImageCompressor.compress(data, sourceDpi, targetDpi, bits, inkThreshold, padding,
+                maxPixels);
+        (compressed != null ? compressedTimer : unchangedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return compressed;
+    }
+}
@@ -0,0 +1,163 @@
+package com.qrsignature.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qrsignature.cache.SingleFlight;
+import com.qrsignature.entity.SignatureImage;
+import com.qrsignature.persistence.SingleWriterQueue;
+import com.qrsignature.repository.SignatureImageRepository;
+import com.qrsignature.util.DataUrlImage;
+import com.qrsignature.util.ImageThumbnails;
+import com.qrsignature.util.SignatureStrokes;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * 签名图片存储 - 按内容哈希寻址，签署记录与历史签名只保存图片ID
+ * 笔迹数据以原始格式存储，首次取图时栅格化并缓存
+ */
+@Service
+public class SignatureImageService {
+
+    @Autowired
+    private SignatureImageRepository signatureImageRepository;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
+
+    @Autowired
+    private SignatureImageProcessor signatureImageProcessor;
+
+    @Value("${sign.thumbnail.size:160}")
+    private int thumbnailSize;
+
+    @Value("${sign.thumbnail.cache-max-bytes:16777216}")
+    private long thumbnailCacheMaxBytes;
+
+    @Value("${sign.image.stroke-cache-max-bytes:16777216}")
+    private long strokeCacheMaxBytes;
+
+    // 图片ID -> 缩略图，图片内容不可变，按字节数限制容量
+    private Cache<String, SignatureImage> thumbnailCache;
+
+    // 笔迹图片ID -> 栅格化后的PNG
+    private Cache<String, SignatureImage> rasterCache;
+
+    private final SingleFlight<SignatureImage> thumbnailLoading = new SingleFlight<>();
+
+    private final SingleFlight<SignatureImage> rasterLoading = new SingleFlight<>();
+
+    @PostConstruct
+    public void init() {
+        thumbnailCache = CacheBuilder.newBuilder()
+                .maximumWeight(thumbnailCacheMaxBytes)
+                .weigher((String key, SignatureImage image) -> image.getSize())
+                .build();
+        rasterCache = CacheBuilder.newBuilder()
+                .maximumWeight(strokeCacheMaxBytes)
+                .weigher((String key, SignatureImage image) -> image.getSize())
+                .build();
+    }
+
+    /**
+     * 保存签名图片，返回图片ID；相同内容的图片只保存一次
+     */
+    public String save(DataUrlImage image) {
+        String id = sha256(image.getData());
+        if (signatureImageRepository.existsById(id)) {
+            return id;
+        }
+        // 写操作交给单写线程，写线程内先检查再写入，不会出现并发重复插入
+        singleWriterQueue.execute(() -> {
+            if (!signatureImageRepository.existsById(id)) {
+                signatureImageRepository.save(new SignatureImage(id, image.getContentType(), image.getData()));
+            }
+        });
+        return id;
+    }
+
+    public Optional<DataUrlImage> find(String id) {
+        return findImage(id).map(this::toDataUrlImage);
+    }
+
+    /**
+     * 获取签名图片，笔迹数据返回栅格化后的PNG
+     */
+    public Optional<SignatureImage> findImage(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        SignatureImage raster = rasterCache.getIfPresent(id);
+        if (raster != null) {
+            return Optional.of(raster);
+        }
+        return signatureImageRepository.findById(id).map(this::rasterize);
+    }
+
+    private SignatureImage rasterize(SignatureImage image) {
+        if (!SignatureStrokes.isStrokes(image.getContentType())) {
+            return image;
+        }
+        // 与SignCache一致经SingleFlight加载，Guava Cache.get(key, loader)在synchronized块内执行栅格化
+        try {
+            return rasterLoading.load(image.getId(), () -> {
+                SignatureImage raster = rasterCache.asMap().get(image.getId());
+                if (raster == null) {
+                    raster = new SignatureImage(image.getId(), DataUrlImage.DEFAULT_CONTENT_TYPE,
+                            signatureImageProcessor.rasterize(image.getData()));
+                    rasterCache.put(image.getId(), raster);
+                }
+                return raster;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("签名笔迹栅格化失败", e);
+        }
+    }
+
+    /**
+     * 获取签名缩略图，原图不超过缩略图尺寸时直接返回原图
+     */
+    public Optional<SignatureImage> findThumbnail(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        SignatureImage cached = thumbnailCache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        try {
+            return Optional.of(thumbnailLoading.load(id, () -> {
+                SignatureImage loaded = thumbnailCache.asMap().get(id);
+                if (loaded == null) {
+                    SignatureImage image = findImage(id)
+                            .orElseThrow(() -> new RuntimeException("签名图片不存在"));
+                    byte[] thumbnail = ImageThumbnails.toPng(image.getData(), thumbnailSize);
+                    loaded = thumbnail == null ? image : new SignatureImage(id, "image/png", thumbnail);
+                    thumbnailCache.put(id, loaded);
+                }
+                return loaded;
+            }));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private DataUrlImage toDataUrlImage(SignatureImage image) {
+        return new DataUrlImage(image.getContentType(), image.getData());
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.qrsignature.service;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.qrsignature.repository.UserSignatureRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户签名存在性索引 - 启动时将已保存签名的用户ID载入布隆过滤器，保存签名后同步加入
+ * 过滤器判定不存在即可直接返回，判定可能存在时先查已确认集合，仍未命中才访问数据库
+ * 多节点部署时其他节点新保存的签名以user_id唯一索引兜底
+ */
+@Slf4j
+@Component
+public class UserSignatureIndex {
+
+    @Value("${sign.user-signature.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${sign.user-signature.bloom-fpp:0.01}")
+    private double bloomFpp;
+
+    @Value("${sign.user-signature.confirmed-max-size:10000}")
+    private long confirmedMaxSize;
+
+    @Autowired
+    private UserSignatureRepository userSignatureRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BloomFilter<String> filter;
+
+    // 已确认存在签名的用户，容量有限，淘汰后由数据库重新确认
+    private Set<String> confirmed;
+
+    private Counter filterAnswers;
+
+    private Counter confirmedAnswers;
+
+    private Counter databaseAnswers;
+
+    @PostConstruct
+    public void load() {
+        List<String> userIds = userSignatureRepository.findAllUserIds();
+        // 预留已有用户数两倍的容量，避免运行期持续加入后误判率上升
+        filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                Math.max(expectedUsers, userIds.size() * 2L), bloomFpp);
+        confirmed = Collections.newSetFromMap(CacheBuilder.newBuilder()
+                .maximumSize(confirmedMaxSize)
+                .<String, Boolean>build()
+                .asMap());
+        for (String userId : userIds) {
+            filter.put(userId);
+        }
+        userIds.stream().limit(confirmedMaxSize).forEach(confirmed::add);
+
+        filterAnswers = answerCounter("filter");
+        confirmedAnswers = answerCounter("confirmed");
+        databaseAnswers = answerCounter("database");
+        log.info("已载入{}个用户的签名索引", userIds.size());
+    }
+
+    /**
+     * 用户是否已保存签名
+     * 索引在各节点本地，多节点部署时其他节点新保存的签名可能判定为不存在，保存时由唯一约束拒绝
+     */
+    public boolean exists(String userId) {
+        if (!filter.mightContain(userId)) {
+            filterAnswers.increment();
+            return false;
+        }
+        if (confirmed.contains(userId)) {
+            confirmedAnswers.increment();
+            return true;
+        }
+        databaseAnswers.increment();
+        boolean exists = userSignatureRepository.findUserIdByUserId(userId).isPresent();
+        if (exists) {
+            confirmed.add(userId);
+        }
+        return exists;
+    }
+
+    /**
+     * 签名保存提交后调用
+     */
+    public void add(String userId) {
+        filter.put(userId);
+        confirmed.add(userId);
+    }
+
+    private Counter answerCounter(String source) {
+        return Counter.builder("sign.user_signature.exists")
+                .description("用户签名存在性判定次数，source为给出结论的层级")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,174 @@
+package com.qrsignature.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 签名图片二进制数据，仅在API边界与 data:image/png;base64,xxx 格式互转
+ * 序列化时分块流式编码Base64，避免构造完整的Base64字符串
+ */
+@Getter
+@JsonSerialize(using = DataUrlImage.Serializer.class)
+@JsonDeserialize(using = DataUrlImage.Deserializer.class)
+public final class DataUrlImage {
+
+    public static final String DEFAULT_CONTENT_TYPE = "image/png";
+
+    public static final String JPEG_CONTENT_TYPE = "image/jpeg";
+
+    // 仅接受位图与笔迹数据，text/html、image/svg+xml等类型按原类型返回时会在浏览器中执行脚本
+    private static final Set<String> ALLOWED_CONTENT_TYPES =
+            Set.of(DEFAULT_CONTENT_TYPE, JPEG_CONTENT_TYPE, SignatureStrokes.CONTENT_TYPE);
+
+    private static final String DATA_PREFIX = "data:";
+
+    private static final String BASE64_MARKER = ";base64,";
+
+    // 3的倍数，保证分块编码结果可直接拼接
+    private static final int ENCODE_CHUNK_SIZE = 3 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private final String contentType;
+
+    private final byte[] data;
+
+    public DataUrlImage(String contentType, byte[] data) {
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    /**
+     * 解析data URL，不带前缀时按PNG的纯Base64处理
+     */
+    public static DataUrlImage parse(String dataUrl) {
+        if (!StringUtils.hasText(dataUrl)) {
+            throw new IllegalArgumentException("签名图片为空");
+        }
+
+        String contentType = DEFAULT_CONTENT_TYPE;
+        String payload = dataUrl;
+        if (dataUrl.startsWith(DATA_PREFIX)) {
+            int markerIndex = dataUrl.indexOf(BASE64_MARKER);
+            if (markerIndex < 0) {
+                throw new IllegalArgumentException("签名图片格式错误");
+            }
+            contentType = checkContentType(dataUrl.substring(DATA_PREFIX.length(), markerIndex));
+            payload = dataUrl.substring(markerIndex + BASE64_MARKER.length());
+        }
+
+        try {
+            return new DataUrlImage(contentType, Base64.getMimeDecoder().decode(payload));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("签名图片格式错误", e);
+        }
+    }
+
+    /**
+     * 从上传流读取图片原始字节，类型不在白名单内时不读取请求体，读取过程中超过maxBytes立即中止
+     * 长度已知时按长度一次分配，未知时(chunked)边读边检查
+     */
+    public static DataUrlImage read(InputStream in, String contentType, long contentLength, long maxBytes) throws IOException {
+        // 未声明类型或以application/octet-stream上传时按PNG处理，保存前由SignatureImageProcessor解码校验
+        String type = contentType == null ? "" : contentType.split(";", 2)[0].trim();
+        type = type.isEmpty() || MediaType.APPLICATION_OCTET_STREAM_VALUE.equalsIgnoreCase(type)
+                ? DEFAULT_CONTENT_TYPE : checkContentType(type);
+        if (contentLength > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+
+        byte[] data;
+        if (contentLength >= 0) {
+            data = in.readNBytes((int) contentLength);
+            if (data.length < contentLength) {
+                throw new IllegalArgumentException("签名图片上传不完整");
+            }
+        } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(READ_BUFFER_SIZE);
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (out.size() + read > maxBytes) {
+                    throw new MaxUploadSizeExceededException(maxBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+            data = out.toByteArray();
+        }
+
+        if (data.length == 0) {
+            throw new IllegalArgumentException("签名图片为空");
+        }
+        return new DataUrlImage(type, data);
+    }
+
+    /**
+     * 是否为允许保存与返回的类型: image/png、image/jpeg与笔迹数据
+     */
+    public static boolean isAllowedContentType(String contentType) {
+        return contentType != null && ALLOWED_CONTENT_TYPES.contains(contentType);
+    }
+
+    private static String checkContentType(String contentType) {
+        String normalized = contentType.trim().toLowerCase(Locale.ROOT);
+        if (!ALLOWED_CONTENT_TYPES.contains(normalized)) {
+            // 不回显客户端传入的类型
+            throw new IllegalArgumentException("不支持的签名图片类型，仅支持PNG、JPEG与签名笔迹");
+        }
+        return normalized;
+    }
+
+    public static class Serializer extends StdSerializer<DataUrlImage> {
+
+        public Serializer() {
+            super(DataUrlImage.class);
+        }
+
+        @Override
+        public void serialize(DataUrlImage value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Base64.Encoder encoder = Base64.getEncoder();
+            byte[] data = value.getData();
+
+            // 白名单内的类型、前缀与Base64字符均无需转义，直接分块写入输出流；白名单外的历史数据不输出原类型
+            String contentType = isAllowedContentType(value.getContentType())
+                    ? value.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            gen.writeRawValue("\"" + DATA_PREFIX + contentType + BASE64_MARKER);
+            for (int offset = 0; offset < data.length; offset += ENCODE_CHUNK_SIZE) {
+                int end = Math.min(offset + ENCODE_CHUNK_SIZE, data.length);
+                byte[] chunk = Arrays.copyOfRange(data, offset, end);
+                gen.writeRaw(encoder.encodeToString(chunk));
+            }
+            gen.writeRaw('"');
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<DataUrlImage> {
+
+        public Deserializer() {
+            super(DataUrlImage.class);
+        }
+
+        @Override
+        public DataUrlImage deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return parse(p.getValueAsString());
+        }
+    }
+}
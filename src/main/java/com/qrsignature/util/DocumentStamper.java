@@ -0,0 +1,164 @@
+package com.qrsignature.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * 文件盖章 - 源文件以内存映射方式解码，签名按位置框等比缩放居中绘制，结果直接编码写入文件
+ * 解码、编码均不在堆上保留完整的文件字节，也不经过ImageIO的临时缓存文件
+ */
+public final class DocumentStamper {
+
+    private DocumentStamper() {
+    }
+
+    /**
+     * 以内存映射方式读取并解码源文件
+     */
+    public static BufferedImage read(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try (ImageInputStream in = new MappedImageInputStream(buffer)) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    throw new IOException("无法识别的文件格式: " + source.getFileName());
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    BufferedImage image = reader.read(0);
+                    // 调色板图片上绘制签名会被量化，转换为真彩色
+                    if (image.getColorModel() instanceof IndexColorModel || image.getType() == BufferedImage.TYPE_CUSTOM) {
+                        return copy(image, image.getColorModel().hasAlpha()
+                                ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                    }
+                    return image;
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * 在位置框内等比缩放并居中绘制签名
+     */
+    public static void draw(BufferedImage document, byte[] signature, int x, int y, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(signature));
+        if (image == null) {
+            throw new IOException("签名图片无法解码");
+        }
+        double scale = Math.min((double) width / image.getWidth(), (double) height / image.getHeight());
+        int drawWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int drawHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        Graphics2D graphics = document.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setComposite(AlphaComposite.SrcOver);
+            graphics.drawImage(image, x + (width - drawWidth) / 2, y + (height - drawHeight) / 2,
+                    drawWidth, drawHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * 编码并写入目标文件
+     */
+    public static void write(BufferedImage document, String format, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("不支持的输出格式: " + format);
+        }
+        ImageWriter writer = writers.next();
+        try (FileImageOutputStream out = new FileImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(document);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * 以内存映射方式计算文件内容的SHA-256
+     */
+    public static String sha256(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage source, int type) {
+        BufferedImage target = new BufferedImage(source.getWidth(), source.getHeight(), type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(source, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 直接读取映射缓冲区的ImageInputStream，seek只移动读取位置
+     */
+    private static final class MappedImageInputStream extends ImageInputStreamImpl {
+
+        private final ByteBuffer buffer;
+
+        MappedImageInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            bitOffset = 0;
+            if (streamPos >= buffer.limit()) {
+                return -1;
+            }
+            return buffer.get((int) streamPos++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            bitOffset = 0;
+            if (streamPos >= buffer.limit()) {
+                return -1;
+            }
+            int count = (int) Math.min(len, buffer.limit() - streamPos);
+            buffer.get((int) streamPos, b, off, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.qrsignature.util;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 签名缩略图工具 - 按最长边等比缩小并输出带透明通道的PNG
+ */
+public final class ImageThumbnails {
+
+    private ImageThumbnails() {
+    }
+
+    /**
+     * 生成缩略图，图片本身不超过maxSize或无法解码时返回null，由调用方直接使用原图
+     */
+    public static byte[] toPng(byte[] data, int maxSize) {
+        BufferedImage source;
+        try {
+            source = ImageIO.read(new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            return null;
+        }
+        if (source == null || Math.max(source.getWidth(), source.getHeight()) <= maxSize) {
+            return null;
+        }
+
+        double scale = (double) maxSize / Math.max(source.getWidth(), source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(thumbnail, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,50 +1,153 @@
 package com.qrsignature.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    // 导出下载token的scope声明，签署token不带scope
+    private static final String EXPORT_SCOPE = "history-export";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.claims-cache-size:10000}")
+    private long claimsCacheSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 签名密钥与解析器只构建一次
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    // 已验签的claims缓存，同一token只做一次HMAC校验；存活时间不超过token自身有效期
+    private Cache<String, Claims> claimsCache;
+
+    // 验签耗时，按结果区分；缓存命中不经过验签，命中率见cache.gets{cache=jwtClaims}
+    private Timer verifyValidTimer;
+
+    private Timer verifyExpiredTimer;
+
+    private Timer verifyInvalidTimer;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        claimsCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(expiration, TimeUnit.MILLISECONDS)
+                .maximumSize(claimsCacheSize)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, claimsCache, "jwtClaims");
+        verifyValidTimer = verifyTimer("valid");
+        verifyExpiredTimer = verifyTimer("expired");
+        verifyInvalidTimer = verifyTimer("invalid");
+    }
+
+    private Timer verifyTimer(String outcome) {
+        return Timer.builder("jwt.verify")
+                .description("JWT验签耗时")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     public String generateToken(String projectId, String userId, String fileId, String metaCode) {
+        return generateToken(projectId, userId, fileId, metaCode, null);
+    }
+
+    /**
+     * 生成token，signRecordId不为空时作为声明写入，无状态模式下据此定位签署记录
+     */
+    public String generateToken(String projectId, String userId, String fileId, String metaCode, String signRecordId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("projectId", projectId);
         claims.put("userId", userId);
         claims.put("fileId", fileId);
         claims.put("metaCode", metaCode);
+        if (signRecordId != null) {
+            claims.put("signRecordId", signRecordId);
+        }
 
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(userId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * 生成项目签署记录导出的下载token，只能用于导出该项目，不能用于签署
+     */
+    public String generateExportToken(String projectId, Duration ttl) {
+        return Jwts.builder()
+                .claim("scope", EXPORT_SCOPE)
+                .claim("projectId", projectId)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttl.toMillis()))
+                .signWith(signingKey)
+                .compact();
+    }
+
+    public boolean validateExportToken(String token, String projectId) {
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            return EXPORT_SCOPE.equals(claims.get("scope", String.class))
+                    && projectId.equals(claims.get("projectId", String.class));
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = claimsCache.getIfPresent(token);
+        if (claims != null) {
+            if (!claims.getExpiration().before(new Date())) {
+                return claims;
+            }
+            // 已过期的token交给解析器重新校验，抛出ExpiredJwtException
+            claimsCache.invalidate(token);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+        } catch (ExpiredJwtException e) {
+            sample.stop(verifyExpiredTimer);
+            throw e;
+        } catch (JwtException | IllegalArgumentException e) {
+            sample.stop(verifyInvalidTimer);
+            throw e;
+        }
+        sample.stop(verifyValidTimer);
+        claimsCache.put(token, claims);
+        return claims;
     }
 
     public String extractProjectId(String token) {
@@ -63,6 +166,10 @@ public class JwtUtil {
         return extractClaims(token).get("metaCode", String.class);
     }
 
+    public String extractSignRecordId(String token) {
+        return extractClaims(token).get("signRecordId", String.class);
+    }
+
     public Date extractExpiration(String token) {
         return extractClaims(token).getExpiration();
     }
@@ -73,13 +180,14 @@ public class JwtUtil {
 
     public Boolean validateToken(String token) {
         try {
-            extractClaims(token);
-            if (isTokenExpired(token)) {
+            Claims claims = extractClaims(token);
+            if (claims.getExpiration().before(new Date())) {
                 throw new RuntimeException("token已过期");
             }
-            return true;
+            // 导出下载token不能用于签署
+            return claims.get("scope") == null;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+}
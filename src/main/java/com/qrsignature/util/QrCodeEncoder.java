@@ -0,0 +1,100 @@
+package com.qrsignature.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 二维码编码工具，纠错级别与前端qrcodejs保持一致(H)
+ */
+public final class QrCodeEncoder {
+
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H,
+            EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name(),
+            EncodeHintType.MARGIN, 1
+    );
+
+    private QrCodeEncoder() {
+    }
+
+    /**
+     * 生成1位灰度PNG，size为边长像素
+     */
+    public static byte[] encodePng(String content, int size) {
+        BitMatrix matrix = encode(content, size);
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        WritableRaster raster = image.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = matrix.get(x, y) ? 0 : 1;
+            }
+            raster.setSamples(0, y, width, 1, 0, row);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(4096);
+        try {
+            ImageIO.write(image, "png", outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 生成SVG，按模块绘制并合并同一行相邻的深色模块
+     */
+    public static byte[] encodeSvg(String content, int size) {
+        BitMatrix matrix = encode(content, 0);
+        int dimension = matrix.getWidth();
+
+        StringBuilder svg = new StringBuilder(dimension * dimension);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(dimension).append(' ').append(dimension)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#ffffff\"/>")
+                .append("<path fill=\"#000000\" d=\"");
+        for (int y = 0; y < dimension; y++) {
+            int x = 0;
+            while (x < dimension) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < dimension && matrix.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(start).append(' ').append(y)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static BitMatrix encode(String content, int size) {
+        try {
+            return new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, HINTS);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("二维码生成失败", e);
+        }
+    }
+}
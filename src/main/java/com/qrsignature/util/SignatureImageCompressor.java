@@ -0,0 +1,223 @@
+package com.qrsignature.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * 签名图片压缩 - 裁剪到笔迹外接矩形，按目标DPI缩小，量化为1位或2位调色板PNG
+ * 笔迹浓度按 不透明度 × (1 - 亮度) 计算，透明背景与白色背景的画布导出结果一致
+ * 解码前先读取图片头中的尺寸，像素数超过上限的图片不解码，避免小文件声明超大尺寸耗尽内存
+ */
+public final class SignatureImageCompressor {
+
+    private static final double MILLIMETERS_PER_INCH = 25.4;
+
+    private SignatureImageCompressor() {
+    }
+
+    /**
+     * 压缩签名图片，没有笔迹或压缩后不更小时返回null，由调用方保留原图
+     * 不是PNG/JPEG、尺寸超过maxPixels或无法解码时抛出IllegalArgumentException
+     *
+     * @param sourceDpi    画布导出图片的分辨率，即CSS像素96DPI × 画布相对CSS尺寸的放大倍数
+     * @param targetDpi    存储分辨率，不低于sourceDpi时不缩放
+     * @param bits         每像素位数，1为黑白，2为带三级灰度抗锯齿
+     * @param inkThreshold 浓度低于该值(0-255)的像素视为背景
+     * @param padding      裁剪后四周保留的像素(按目标分辨率)
+     * @param maxPixels    允许解码的最大像素数(宽 × 高)
+     */
+    public static byte[] compress(byte[] data, int sourceDpi, int targetDpi, int bits, int inkThreshold, int padding,
+                                  long maxPixels) {
+        if (bits != 1 && bits != 2) {
+            throw new IllegalArgumentException("量化位数只支持1或2");
+        }
+        BufferedImage source = decode(data, maxPixels);
+        byte[] compressed = compress(source, sourceDpi, targetDpi, bits, inkThreshold, padding);
+        return compressed != null && compressed.length < data.length ? compressed : null;
+    }
+
+    /**
+     * 只读取图片头校验格式与尺寸，不解码像素数据，不合格时抛出IllegalArgumentException
+     */
+    public static void checkImage(byte[] data, long maxPixels) {
+        read(data, maxPixels, false);
+    }
+
+    /**
+     * 校验格式与尺寸后解码，不合格或解码失败时抛出IllegalArgumentException
+     */
+    public static BufferedImage decode(byte[] data, long maxPixels) {
+        return read(data, maxPixels, true);
+    }
+
+    private static BufferedImage read(byte[] data, long maxPixels, boolean decode) {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("无法识别的签名图片");
+            }
+            ImageReader reader = readers.next();
+            try {
+                String format = reader.getFormatName().toLowerCase();
+                if (!format.equals("png") && !format.equals("jpeg")) {
+                    throw new IllegalArgumentException("签名图片只支持PNG或JPEG");
+                }
+                reader.setInput(stream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels <= 0 || pixels > maxPixels) {
+                    throw new IllegalArgumentException("签名图片尺寸过大");
+                }
+                return decode ? reader.read(0) : null;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // 文件截断或数据损坏时解码器可能抛出IOException以外的运行时异常
+            throw new IllegalArgumentException("签名图片无法解码", e);
+        }
+    }
+
+    /**
+     * 压缩已解码的签名图片，没有笔迹时返回null
+     */
+    public static byte[] compress(BufferedImage source, int sourceDpi, int targetDpi, int bits, int inkThreshold, int padding) {
+        if (bits != 1 && bits != 2) {
+            throw new IllegalArgumentException("量化位数只支持1或2");
+        }
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int[] pixels = source.getRGB(0, 0, width, height, null, 0, width);
+        int[] ink = new int[pixels.length];
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int coverage = coverage(pixels[y * width + x]);
+                if (coverage < inkThreshold) {
+                    continue;
+                }
+                ink[y * width + x] = coverage;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+        }
+        if (maxX < 0) {
+            return null;
+        }
+
+        // 按面积平均缩小裁剪区域，每个目标像素取对应源区域的平均浓度
+        int cropWidth = maxX - minX + 1;
+        int cropHeight = maxY - minY + 1;
+        double scale = targetDpi < sourceDpi ? (double) targetDpi / sourceDpi : 1.0;
+        int scaledWidth = Math.max(1, (int) Math.round(cropWidth * scale));
+        int scaledHeight = Math.max(1, (int) Math.round(cropHeight * scale));
+        int[] scaled = new int[scaledWidth * scaledHeight];
+        for (int ty = 0; ty < scaledHeight; ty++) {
+            int y0 = minY + ty * cropHeight / scaledHeight;
+            int y1 = Math.max(y0 + 1, minY + (ty + 1) * cropHeight / scaledHeight);
+            for (int tx = 0; tx < scaledWidth; tx++) {
+                int x0 = minX + tx * cropWidth / scaledWidth;
+                int x1 = Math.max(x0 + 1, minX + (tx + 1) * cropWidth / scaledWidth);
+                int sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        sum += ink[y * width + x];
+                    }
+                }
+                scaled[ty * scaledWidth + tx] = sum / ((y1 - y0) * (x1 - x0));
+            }
+        }
+
+        int levels = (1 << bits) - 1;
+        BufferedImage quantized = new BufferedImage(scaledWidth + padding * 2, scaledHeight + padding * 2,
+                BufferedImage.TYPE_BYTE_BINARY, palette(bits));
+        WritableRaster quantizedRaster = quantized.getRaster();
+        for (int y = 0; y < scaledHeight; y++) {
+            for (int x = 0; x < scaledWidth; x++) {
+                int level = (scaled[y * scaledWidth + x] * levels + 127) / 255;
+                quantizedRaster.setSample(x + padding, y + padding, 0, level);
+            }
+        }
+
+        return encodePng(quantized, Math.min(targetDpi, sourceDpi));
+    }
+
+    private static int coverage(int argb) {
+        int alpha = argb >>> 24;
+        int red = (argb >> 16) & 0xFF;
+        int green = (argb >> 8) & 0xFF;
+        int blue = argb & 0xFF;
+        int luminance = (red * 299 + green * 587 + blue * 114) / 1000;
+        return alpha * (255 - luminance) / 255;
+    }
+
+    /**
+     * 调色板 - 0为透明背景，其余为不透明度递增的黑色
+     */
+    private static IndexColorModel palette(int bits) {
+        int size = 1 << bits;
+        byte[] black = new byte[size];
+        byte[] alpha = new byte[size];
+        for (int i = 0; i < size; i++) {
+            alpha[i] = (byte) (i * 255 / (size - 1));
+        }
+        return new IndexColorModel(bits, size, black, black, black, alpha);
+    }
+
+    /**
+     * 编码PNG并写入pHYs分辨率，盖章时可按物理尺寸还原签名大小
+     */
+    private static byte[] encodePng(BufferedImage image, int dpi) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+            setDpi(metadata, dpi);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, metadata), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static void setDpi(IIOMetadata metadata, int dpi) throws IIOInvalidTreeException {
+        String pixelSize = Double.toString(MILLIMETERS_PER_INCH / dpi);
+        IIOMetadataNode horizontal = new IIOMetadataNode("HorizontalPixelSize");
+        horizontal.setAttribute("value", pixelSize);
+        IIOMetadataNode vertical = new IIOMetadataNode("VerticalPixelSize");
+        vertical.setAttribute("value", pixelSize);
+        IIOMetadataNode dimension = new IIOMetadataNode("Dimension");
+        dimension.appendChild(horizontal);
+        dimension.appendChild(vertical);
+        IIOMetadataNode root = new IIOMetadataNode("javax_imageio_1.0");
+        root.appendChild(dimension);
+        metadata.mergeTree("javax_imageio_1.0", root);
+    }
+}
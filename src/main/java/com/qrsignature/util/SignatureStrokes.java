@@ -0,0 +1,286 @@
+package com.qrsignature.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 签名笔迹 - 签署页面采集的原始轨迹点，按需栅格化为图片，同时保留压力与时间供后续笔迹核验
+ * <p>
+ * 二进制格式(application/x-signature-strokes)，整数均为varint，带符号的差值先做ZigZag编码：
+ * <pre>
+ * 'S' 'K' 版本(1)
+ * 画布宽 画布高(CSS像素) 坐标精度(每像素单位数) 笔宽(单位)
+ * 笔画数，每个笔画: 点数，每个点: dx dy dt(毫秒) dpressure(0-255，0为设备不支持)
+ * </pre>
+ * 差值均相对于上一个点(跨笔画连续)，首个点相对于(0, 0, 0, 0)
+ */
+@Getter
+@AllArgsConstructor
+public final class SignatureStrokes {
+
+    public static final String CONTENT_TYPE = "application/x-signature-strokes";
+
+    private static final int VERSION = 1;
+
+    private static final int MAX_CANVAS_SIZE = 1024;
+
+    private static final int MAX_SCALE = 16;
+
+    private static final int MAX_POINTS = 100_000;
+
+    private static final int MAX_PRESSURE = 255;
+
+    private final int width;
+
+    private final int height;
+
+    private final int scale;
+
+    private final int lineWidth;
+
+    private final List<Stroke> strokes;
+
+    /**
+     * 单个笔画，坐标以 1/scale 像素为单位
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stroke {
+        private final int[] x;
+        private final int[] y;
+        private final int[] time;
+        private final int[] pressure;
+
+        public int size() {
+            return x.length;
+        }
+    }
+
+    public static boolean isStrokes(String contentType) {
+        return CONTENT_TYPE.equals(contentType);
+    }
+
+    /**
+     * 解析并校验笔迹数据，格式错误或超出限制时抛出IllegalArgumentException
+     */
+    public static SignatureStrokes decode(byte[] data) {
+        Reader reader = new Reader(data);
+        if (reader.readByte() != 'S' || reader.readByte() != 'K' || reader.readByte() != VERSION) {
+            throw new IllegalArgumentException("签名笔迹格式错误");
+        }
+        int width = reader.readVarint();
+        int height = reader.readVarint();
+        int scale = reader.readVarint();
+        int lineWidth = reader.readVarint();
+        if (width <= 0 || height <= 0 || width > MAX_CANVAS_SIZE || height > MAX_CANVAS_SIZE
+                || scale <= 0 || scale > MAX_SCALE || lineWidth <= 0 || lineWidth > width * scale) {
+            throw new IllegalArgumentException("签名笔迹画布参数无效");
+        }
+
+        int strokeCount = reader.readVarint();
+        if (strokeCount <= 0) {
+            throw new IllegalArgumentException("签名笔迹为空");
+        }
+        List<Stroke> strokes = new ArrayList<>(Math.min(strokeCount, 1024));
+        int totalPoints = 0;
+        int x = 0;
+        int y = 0;
+        int time = 0;
+        int pressure = 0;
+        for (int s = 0; s < strokeCount; s++) {
+            int count = reader.readVarint();
+            totalPoints += count;
+            if (count <= 0 || totalPoints > MAX_POINTS) {
+                throw new IllegalArgumentException("签名笔迹点数无效");
+            }
+            Stroke stroke = new Stroke(new int[count], new int[count], new int[count], new int[count]);
+            for (int i = 0; i < count; i++) {
+                x += reader.readZigzag();
+                y += reader.readZigzag();
+                int elapsed = reader.readVarint();
+                time += elapsed;
+                pressure += reader.readZigzag();
+                if (elapsed < 0 || time < 0 || pressure < 0 || pressure > MAX_PRESSURE) {
+                    throw new IllegalArgumentException("签名笔迹格式错误");
+                }
+                stroke.x[i] = x;
+                stroke.y[i] = y;
+                stroke.time[i] = time;
+                stroke.pressure[i] = pressure;
+            }
+            strokes.add(stroke);
+        }
+        if (!reader.isEnd()) {
+            throw new IllegalArgumentException("签名笔迹格式错误");
+        }
+        return new SignatureStrokes(width, height, scale, lineWidth, strokes);
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('S');
+        out.write('K');
+        out.write(VERSION);
+        writeVarint(out, width);
+        writeVarint(out, height);
+        writeVarint(out, scale);
+        writeVarint(out, lineWidth);
+        writeVarint(out, strokes.size());
+        int x = 0;
+        int y = 0;
+        int time = 0;
+        int pressure = 0;
+        for (Stroke stroke : strokes) {
+            writeVarint(out, stroke.size());
+            for (int i = 0; i < stroke.size(); i++) {
+                writeZigzag(out, stroke.x[i] - x);
+                writeZigzag(out, stroke.y[i] - y);
+                writeVarint(out, stroke.time[i] - time);
+                writeZigzag(out, stroke.pressure[i] - pressure);
+                x = stroke.x[i];
+                y = stroke.y[i];
+                time = stroke.time[i];
+                pressure = stroke.pressure[i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 以白底黑色笔迹绘制到灰度图，只绘制画布内笔迹的外接区域
+     *
+     * @param pixelsPerPoint 输出像素与CSS像素之比，即目标DPI / 96
+     * @return 没有落在画布内的笔迹时返回null
+     */
+    public BufferedImage render(double pixelsPerPoint) {
+        double maxWidth = lineWidth * 1.5 / scale;
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (Stroke stroke : strokes) {
+            for (int i = 0; i < stroke.size(); i++) {
+                minX = Math.min(minX, (double) stroke.x[i] / scale);
+                minY = Math.min(minY, (double) stroke.y[i] / scale);
+                maxX = Math.max(maxX, (double) stroke.x[i] / scale);
+                maxY = Math.max(maxY, (double) stroke.y[i] / scale);
+            }
+        }
+        // 与签署页面所见一致，画布外的部分不绘制
+        minX = Math.max(0, minX - maxWidth);
+        minY = Math.max(0, minY - maxWidth);
+        maxX = Math.min(width, maxX + maxWidth);
+        maxY = Math.min(height, maxY + maxWidth);
+        if (minX >= maxX || minY >= maxY) {
+            return null;
+        }
+
+        int imageWidth = (int) Math.ceil((maxX - minX) * pixelsPerPoint);
+        int imageHeight = (int) Math.ceil((maxY - minY) * pixelsPerPoint);
+        BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, imageWidth, imageHeight);
+            graphics.setColor(Color.BLACK);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            graphics.scale(pixelsPerPoint, pixelsPerPoint);
+            graphics.translate(-minX, -minY);
+            for (Stroke stroke : strokes) {
+                drawStroke(graphics, stroke);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private void drawStroke(Graphics2D graphics, Stroke stroke) {
+        if (stroke.size() == 1) {
+            double diameter = penWidth(stroke.pressure[0]);
+            graphics.fill(new Ellipse2D.Double((double) stroke.x[0] / scale - diameter / 2,
+                    (double) stroke.y[0] / scale - diameter / 2, diameter, diameter));
+            return;
+        }
+        // 逐段按两端平均压力设置笔宽，圆形端点使相邻线段平滑衔接
+        for (int i = 1; i < stroke.size(); i++) {
+            float penWidth = (float) penWidth((stroke.pressure[i - 1] + stroke.pressure[i]) / 2);
+            graphics.setStroke(new BasicStroke(penWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            graphics.draw(new Line2D.Double((double) stroke.x[i - 1] / scale, (double) stroke.y[i - 1] / scale,
+                    (double) stroke.x[i] / scale, (double) stroke.y[i] / scale));
+        }
+    }
+
+    /**
+     * 笔宽(CSS像素)，压力0.5时为原笔宽，设备不支持压力时按原笔宽绘制
+     */
+    private double penWidth(int pressure) {
+        double factor = pressure == 0 ? 1.0 : 0.5 + (double) pressure / MAX_PRESSURE;
+        return (double) lineWidth / scale * factor;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeZigzag(ByteArrayOutputStream out, int value) {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("签名笔迹数据不完整");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                // 第5个字节只有低4位属于32位整数，更高的位会被静默丢弃
+                if (shift == 28 && b > 0x0F) {
+                    throw new IllegalArgumentException("签名笔迹格式错误");
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("签名笔迹格式错误");
+        }
+
+        int readZigzag() {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        boolean isEnd() {
+            return position == data.length;
+        }
+    }
+}
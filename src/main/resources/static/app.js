@@ -3,6 +3,7 @@ class QrSignatureApp {
         this.apiUrl = '/api/sign';
         this.currentToken = null;
         this.pollingInterval = null;
+        this.statusSource = null;
         this.currentProjectId = null;
         this.currentUserId = null;
         this.currentFileId = null;
@@ -196,6 +197,50 @@ class QrSignatureApp {
     }
 
     startPolling() {
+        this.stopPolling();
+
+        // 优先使用SSE由服务端推送状态变更，不支持时回退为定时轮询
+        if (typeof EventSource !== 'undefined') {
+            this.startStatusStream();
+        } else {
+            this.startIntervalPolling();
+        }
+    }
+
+    startStatusStream() {
+        if (!this.signRecordId || !this.currentToken) return;
+
+        const streamUrl = `${this.apiUrl}/status/stream?signRecordId=${encodeURIComponent(this.signRecordId)}&token=${encodeURIComponent(this.currentToken)}`;
+        this.statusSource = new EventSource(streamUrl);
+
+        this.statusSource.addEventListener('status', (event) => {
+            this.handleStatusData(JSON.parse(event.data));
+        });
+
+        // 订阅被拒绝(token无效等)，服务端发送后关闭连接，不再重连或回退轮询
+        this.statusSource.addEventListener('sign-error', (event) => {
+            const data = JSON.parse(event.data);
+            this.stopPolling();
+            this.showStatus(data.message === '无效的Token' ? 'token已过期，请重新生成' : (data.message || '订阅签署状态失败'), 'error');
+        });
+
+        this.statusSource.onerror = () => {
+            // 已签署后服务端主动关闭连接，无需处理
+            if (!this.statusSource) return;
+            console.warn('状态推送连接中断，回退为轮询');
+            this.closeStatusStream();
+            this.startIntervalPolling();
+        };
+    }
+
+    closeStatusStream() {
+        if (this.statusSource) {
+            this.statusSource.close();
+            this.statusSource = null;
+        }
+    }
+
+    startIntervalPolling() {
         if (this.pollingInterval) {
             clearInterval(this.pollingInterval);
         }
@@ -216,23 +261,7 @@ class QrSignatureApp {
                     throw new Error(data.message || '查询状态失败');
                 }
 
-                // 检查状态是否变化
-                if (data.status) {
-                    let statusClass = 'info';
-                    let statusIndicator = 'unscanned';
-
-                    if (data.status === '已扫描未签署') {
-                        statusClass = 'warning';
-                        statusIndicator = 'scanned';
-                    } else if (data.status === '已签署') {
-                        statusClass = 'success';
-                        statusIndicator = 'signed';
-                        this.stopPolling();
-                        this.showSignatureComplete(data.signatureBase64);
-                    }
-
-                    this.showStatus(`<span class="status-indicator ${statusIndicator}"></span>当前状态: ${data.status}`, statusClass);
-                }
+                this.handleStatusData(data);
 
             } catch (error) {
                 console.error('轮询失败:', error);
@@ -245,14 +274,36 @@ class QrSignatureApp {
         }, 2000); // 每2秒轮询一次
     }
 
+    handleStatusData(data) {
+        // 检查状态是否变化
+        if (!data.status) return;
+
+        let statusClass = 'info';
+        let statusIndicator = 'unscanned';
+
+        if (data.status === '已扫描未签署') {
+            statusClass = 'warning';
+            statusIndicator = 'scanned';
+        } else if (data.status === '已签署') {
+            statusClass = 'success';
+            statusIndicator = 'signed';
+            this.stopPolling();
+            // 状态中不含图片，签名图片按需单独获取
+            this.showSignatureComplete(`${this.apiUrl}/signature-image?signRecordId=${encodeURIComponent(data.signRecordId)}&token=${encodeURIComponent(this.currentToken)}`);
+        }
+
+        this.showStatus(`<span class="status-indicator ${statusIndicator}"></span>当前状态: ${data.status}`, statusClass);
+    }
+
     stopPolling() {
+        this.closeStatusStream();
         if (this.pollingInterval) {
             clearInterval(this.pollingInterval);
             this.pollingInterval = null;
         }
     }
 
-    showSignatureComplete(signatureBase64) {
+    showSignatureComplete(signatureUrl) {
         const signContainer = document.getElementById('signContainer');
         const signatureResult = document.getElementById('signatureResult');
 
@@ -261,8 +312,8 @@ class QrSignatureApp {
 
         // 显示签名图片
         const signatureImage = document.getElementById('signatureImage');
-        if (signatureImage && signatureBase64) {
-            signatureImage.src = signatureBase64;
+        if (signatureImage && signatureUrl) {
+            signatureImage.src = signatureUrl;
         }
 
         this.showStatus('签名已完成！', 'success');
@@ -414,7 +465,7 @@ class SignaturePage {
 
             signatureGrid.innerHTML = signatures.map(sig => `
                 <div class="signature-item" data-id="${sig.id}" onclick="signaturePage.selectSignature('${sig.id}')">
-                    <img src="${sig.signatureBase64}" alt="历史签名">
+                    <img src="${this.apiUrl}/user-signatures/${encodeURIComponent(sig.id)}/image?userId=${encodeURIComponent(userId)}&thumbnail=true" alt="历史签名" loading="lazy">
                     <div class="signature-info">
                         <div class="signature-name">历史签名</div>
                         <div class="signature-date">${this.formatDate(sig.createdAt)}</div>
@@ -499,12 +550,25 @@ class SignaturePage {
         ctx.lineWidth = 2;
         ctx.lineCap = 'round';
 
+        // 同时记录原始轨迹点(CSS像素、毫秒、压力0-255)，确认时以笔迹格式上传
+        this.strokes = [];
+        let startTime = null;
+        const recordPoint = (x, y, pressure, newStroke) => {
+            const now = performance.now();
+            if (startTime === null) startTime = now;
+            if (newStroke) this.strokes.push([]);
+            this.strokes[this.strokes.length - 1].push({
+                x: x, y: y, t: Math.round(now - startTime), p: Math.round(pressure * 255)
+            });
+        };
+
         // 鼠标事件
         canvas.addEventListener('mousedown', (e) => {
             isDrawing = true;
             const rect = canvas.getBoundingClientRect();
             lastX = e.clientX - rect.left;
             lastY = e.clientY - rect.top;
+            recordPoint(lastX, lastY, 0, true);
         });
 
         canvas.addEventListener('mousemove', (e) => {
@@ -513,6 +577,7 @@ class SignaturePage {
             const rect = canvas.getBoundingClientRect();
             const currentX = e.clientX - rect.left;
             const currentY = e.clientY - rect.top;
+            recordPoint(currentX, currentY, 0, false);
 
             ctx.beginPath();
             ctx.moveTo(lastX, lastY);
@@ -539,6 +604,7 @@ class SignaturePage {
             const touch = e.touches[0];
             lastX = touch.clientX - rect.left;
             lastY = touch.clientY - rect.top;
+            recordPoint(lastX, lastY, touch.force || 0, true);
         });
 
         canvas.addEventListener('touchmove', (e) => {
@@ -549,6 +615,7 @@ class SignaturePage {
             const touch = e.touches[0];
             const currentX = touch.clientX - rect.left;
             const currentY = touch.clientY - rect.top;
+            recordPoint(currentX, currentY, touch.force || 0, false);
 
             ctx.beginPath();
             ctx.moveTo(lastX, lastY);
@@ -571,6 +638,40 @@ class SignaturePage {
 
         const ctx = canvas.getContext('2d');
         ctx.clearRect(0, 0, canvas.width, canvas.height);
+        this.strokes = [];
+    }
+
+    // 笔迹编码：坐标精度1/4像素，坐标、时间、压力均为与上一点的差值，ZigZag + varint，格式见服务端 SignatureStrokes
+    encodeStrokes(canvas) {
+        const scale = 4;
+        const bytes = [0x53, 0x4B, 1];
+        const varint = (value) => {
+            while (value > 0x7F) {
+                bytes.push((value & 0x7F) | 0x80);
+                value = Math.floor(value / 128);
+            }
+            bytes.push(value);
+        };
+        const zigzag = (value) => varint(value >= 0 ? value * 2 : -value * 2 - 1);
+
+        varint(canvas.width);
+        varint(canvas.height);
+        varint(scale);
+        varint(2 * scale);
+        varint(this.strokes.length);
+        let last = { x: 0, y: 0, t: 0, p: 0 };
+        for (const stroke of this.strokes) {
+            varint(stroke.length);
+            for (const point of stroke) {
+                const current = { x: Math.round(point.x * scale), y: Math.round(point.y * scale), t: point.t, p: point.p };
+                zigzag(current.x - last.x);
+                zigzag(current.y - last.y);
+                varint(current.t - last.t);
+                zigzag(current.p - last.p);
+                last = current;
+            }
+        }
+        return new Uint8Array(bytes);
     }
 
     async confirmSignature() {
@@ -587,34 +688,35 @@ class SignaturePage {
             return;
         }
 
-        const signatureBase64 = canvas.toDataURL('image/png');
         const saveForReuse = document.getElementById('saveSignature').checked;
 
         try {
-            const requestBody = {
-                signatureBase64: signatureBase64,
-                saveForReuse: saveForReuse
-            };
-
-            // 如果使用了历史签名，添加userSignatureId
+            let response;
             if (this.selectedSignatureId) {
-                requestBody.userSignatureId = this.selectedSignatureId;
+                // 使用历史签名，无需上传图片，服务端按签名ID取原图
+                response = await this.postConfirm(JSON.stringify({
+                    saveForReuse: saveForReuse,
+                    userSignatureId: this.selectedSignatureId
+                }), 'application/json');
+            } else if (this.strokes && this.strokes.length > 0) {
+                // 新签名上传原始笔迹，通常只有几KB，图片由服务端按需生成
+                response = await this.postConfirm(this.encodeStrokes(canvas), 'application/x-signature-strokes',
+                    `?saveForReuse=${saveForReuse}`);
+            } else {
+                // 无法获取笔迹时以PNG二进制上传，避免Base64编码
+                const blob = await new Promise(resolve => canvas.toBlob(resolve, 'image/png'));
+                response = await this.postConfirm(blob, 'image/png', `?saveForReuse=${saveForReuse}`);
             }
 
-            const response = await fetch(`${this.apiUrl}/confirm`, {
-                method: 'POST',
-                headers: {
-                    'Content-Type': 'application/json',
-                    'Authorization': this.token
-                },
-                body: JSON.stringify(requestBody)
-            });
-
             const data = await response.json();
 
             if (!response.ok) {
                 throw new Error(data.message || '签名确认失败');
             }
+            // 上传笔迹时响应不含图片，以本地画布预览
+            if (!data.signatureBase64) {
+                data.signatureBase64 = canvas.toDataURL('image/png');
+            }
 
             this.showSuccess(data);
         } catch (error) {
@@ -630,6 +732,33 @@ class SignaturePage {
         }
     }
 
+    // 确认请求携带幂等键，网络失败时以同一幂等键重试，服务端对已完成的确认直接返回首次结果
+    async postConfirm(body, contentType, query = '') {
+        if (!this.idempotencyKey) {
+            this.idempotencyKey = (window.crypto && crypto.randomUUID)
+                ? crypto.randomUUID()
+                : Date.now().toString(36) + Math.random().toString(36).slice(2);
+        }
+        for (let attempt = 1; ; attempt++) {
+            try {
+                return await fetch(`${this.apiUrl}/confirm${query}`, {
+                    method: 'POST',
+                    headers: {
+                        'Content-Type': contentType,
+                        'Authorization': this.token,
+                        'Idempotency-Key': this.idempotencyKey
+                    },
+                    body: body
+                });
+            } catch (error) {
+                if (attempt >= 3) {
+                    throw error;
+                }
+                await new Promise(resolve => setTimeout(resolve, attempt * 1000));
+            }
+        }
+    }
+
     
     showSuccess(data) {
         document.getElementById('signForm').innerHTML = `
@@ -664,7 +793,7 @@ class SignaturePage {
 document.addEventListener('DOMContentLoaded', () => {
     const path = window.location.pathname;
 
-    if (path === '/signing.html' || path.includes('signing.html') || path === '/signature.html' || path.includes('signature.html') || path === '/sign.html' || path.includes('sign.html')) {
+    if (path === '/sign' || path === '/signing.html' || path.includes('signing.html') || path === '/signature.html' || path.includes('signature.html') || path === '/sign.html' || path.includes('sign.html')) {
         // 签名页面
         window.signaturePage = new SignaturePage();
     } else {
@@ -0,0 +1,43 @@
+package com.qrsignature.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地缓存加载：加载期间其他线程写入的值不被加载结果覆盖
+ */
+class LocalSignCacheTest {
+
+    @Test
+    void guavaLoadDoesNotOverwriteConcurrentPut() throws Exception {
+        assertLoadKeepsConcurrentPut(new GuavaSignCache<>("status", Duration.ofMinutes(5), 100));
+    }
+
+    @Test
+    void caffeineLoadDoesNotOverwriteConcurrentPut() throws Exception {
+        assertLoadKeepsConcurrentPut(new CaffeineSignCache<>("status", (key, value) -> Duration.ofMinutes(5),
+                1024, (key, value) -> 1));
+    }
+
+    @Test
+    void loadedValueIsCachedWhenNothingWasPut() throws Exception {
+        GuavaSignCache<String> cache = new GuavaSignCache<>("status", Duration.ofMinutes(5), 100);
+        assertEquals("未扫描", cache.get("r1", () -> "未扫描"));
+        assertEquals("未扫描", cache.getIfPresent("r1"));
+    }
+
+    /**
+     * 加载时读到确认签署提交前的状态，确认签署在加载返回前写入已签署
+     */
+    private static void assertLoadKeepsConcurrentPut(SignCache<String> cache) throws Exception {
+        String value = cache.get("r1", () -> {
+            cache.put("r1", "已签署");
+            return "未扫描";
+        });
+        assertEquals("已签署", value);
+        assertEquals("已签署", cache.getIfPresent("r1"));
+    }
+}
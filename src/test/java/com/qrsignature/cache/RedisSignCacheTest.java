@@ -0,0 +1,206 @@
+package com.qrsignature.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.qrsignature.controller.vo.SignProgressResponse;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.entity.SignRecord;
+import com.qrsignature.service.SignProgressTracker;
+import com.qrsignature.service.SignStatusPublisher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis共享缓存与签署状态、进度跨节点转发，使用内置Redis服务端，两个缓存实例模拟两个节点
+ */
+class RedisSignCacheTest {
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    private static RedisMessageListenerContainer listenerContainer;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        listenerContainer.stop();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    private RedisSignCache<SignStatusResponse> statusCache() {
+        return new RedisSignCache<>("status", redisTemplate, listenerContainer,
+                new TypeReference<>() {}, Duration.ofMinutes(5), Duration.ofMinutes(1), 100);
+    }
+
+    private static SignStatusResponse status(String signRecordId, String status) {
+        SignStatusResponse response = new SignStatusResponse();
+        response.setSignRecordId(signRecordId);
+        response.setStatus(status);
+        response.setSignatureSequence(1);
+        return response;
+    }
+
+    @Test
+    void putStoresJsonWithTtlAndReadsBack() {
+        RedisSignCache<SignStatusResponse> cache = statusCache();
+        cache.put("r1", status("r1", "未扫描"));
+
+        Long ttl = redisTemplate.getExpire("qrsignature:status:r1", TimeUnit.SECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 0 && ttl <= 300);
+        // 另一个节点没有近缓存，从Redis读取
+        assertEquals(status("r1", "未扫描"), statusCache().getIfPresent("r1"));
+        assertNull(cache.getIfPresent("missing"));
+    }
+
+    @Test
+    void getLoadsOnceAndWrapsLoaderFailures() throws Exception {
+        RedisSignCache<SignStatusResponse> cache = statusCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            SignStatusResponse value = cache.get("r1", () -> {
+                loads.incrementAndGet();
+                return status("r1", "未扫描");
+            });
+            assertEquals("未扫描", value.getStatus());
+        }
+        assertEquals(1, loads.get());
+
+        assertThrows(UncheckedExecutionException.class, () -> cache.get("r2", () -> {
+            throw new IllegalStateException("签署记录不存在");
+        }));
+    }
+
+    @Test
+    void loadDoesNotOverwriteValueWrittenByAnotherNode() throws Exception {
+        RedisSignCache<SignStatusResponse> nodeA = statusCache();
+        RedisSignCache<SignStatusResponse> nodeB = statusCache();
+
+        // 节点A加载时读到确认前的状态，期间节点B完成确认并写入
+        SignStatusResponse value = nodeA.get("r1", () -> {
+            nodeB.put("r1", status("r1", "已签署"));
+            return status("r1", "未扫描");
+        });
+
+        assertEquals("已签署", value.getStatus());
+        assertEquals("已签署", statusCache().getIfPresent("r1").getStatus());
+        assertEquals("已签署", nodeA.getIfPresent("r1").getStatus());
+    }
+
+    @Test
+    void batchOperationsReturnOnlyPresentEntries() {
+        RedisSignCache<SignStatusResponse> cache = statusCache();
+        cache.putAll(Map.of("r1", status("r1", "未扫描"), "r2", status("r2", "已签署")));
+
+        Map<String, SignStatusResponse> present = statusCache().getAllPresent(List.of("r1", "r2", "r3"));
+        assertEquals(2, present.size());
+        assertEquals("已签署", present.get("r2").getStatus());
+
+        cache.invalidate("r1");
+        assertFalse(redisTemplate.hasKey("qrsignature:status:r1"));
+        assertEquals(List.of("r2"), List.copyOf(statusCache().getAllPresent(List.of("r1", "r2")).keySet()));
+    }
+
+    @Test
+    void writeOnOneNodeClearsNearCacheOnOthers() throws InterruptedException {
+        RedisSignCache<SignStatusResponse> nodeA = statusCache();
+        RedisSignCache<SignStatusResponse> nodeB = statusCache();
+        nodeA.put("r1", status("r1", "未扫描"));
+        // 节点B读取后进入近缓存，近缓存有效期为1分钟
+        assertEquals("未扫描", nodeB.getIfPresent("r1").getStatus());
+
+        nodeA.put("r1", status("r1", "已签署"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"已签署".equals(nodeB.getIfPresent("r1").getStatus())) {
+            assertTrue(System.currentTimeMillis() < deadline, "未收到失效广播");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void statusPublishedOnOneNodeIsDeliveredOnOthers() {
+        SignStatusPublisher publisherA = spy(new SignStatusPublisher());
+        SignStatusPublisher publisherB = mock(SignStatusPublisher.class);
+        new RedisSignStatusRelay(redisTemplate, listenerContainer, publisherA);
+        new RedisSignStatusRelay(redisTemplate, listenerContainer, publisherB);
+
+        publisherA.publish(status("r1", "已签署"));
+
+        verify(publisherB, timeout(5000)).deliver(argThat(response ->
+                "r1".equals(response.getSignRecordId()) && "已签署".equals(response.getStatus())));
+        // 节点A只推送本地订阅方一次，不处理自身发出的广播
+        verify(publisherA, after(500).times(1)).deliver(any());
+    }
+
+    @Test
+    void progressRecordedOnOneNodeIsCountedOnOthers() throws InterruptedException {
+        SignProgressTracker trackerA = new SignProgressTracker();
+        SignProgressTracker trackerB = new SignProgressTracker();
+        new RedisSignProgressRelay(redisTemplate, listenerContainer, trackerA);
+        new RedisSignProgressRelay(redisTemplate, listenerContainer, trackerB);
+
+        trackerA.recordCreated("p1", "f1", 3);
+        trackerA.recordTransition("p1", "f1", SignRecord.SignStatus.UNSCANNED, SignRecord.SignStatus.SIGNED, 1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (trackerB.getFileProgress("p1", "f1").getSigned() < 1) {
+            assertTrue(System.currentTimeMillis() < deadline, "未收到进度广播");
+            Thread.sleep(20);
+        }
+        SignProgressResponse progress = trackerB.getProjectProgress("p1");
+        assertEquals(3, progress.getTotal());
+        assertEquals(2, progress.getUnscanned());
+        // 节点A不重复累加自身发出的广播
+        Thread.sleep(200);
+        assertEquals(3, trackerA.getProjectProgress("p1").getTotal());
+    }
+}
@@ -0,0 +1,203 @@
+package com.qrsignature.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单写线程队列：合并提交、合并失败后逐个重试、停止时不遗留未完成的写操作
+ */
+class SingleWriterQueueTest {
+
+    private PlatformTransactionManager transactionManager;
+
+    private SingleWriterQueue writerQueue;
+
+    // 调用方线程，写操作提交后阻塞等待提交完成
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        writerQueue = new SingleWriterQueue();
+        ReflectionTestUtils.setField(writerQueue, "enabled", true);
+        ReflectionTestUtils.setField(writerQueue, "maxBatch", 64);
+        ReflectionTestUtils.setField(writerQueue, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(writerQueue, "transactionManager", transactionManager);
+        writerQueue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writerQueue.stop();
+        callers.shutdownNow();
+    }
+
+    /**
+     * 写线程阻塞期间积压的写操作在同一个事务中提交
+     */
+    @Test
+    void queuedWritesShareOneTransaction() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = blockWriter(release);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            int value = i;
+            futures.add(submit(() -> value));
+        }
+        waitForQueued(10);
+        release.countDown();
+
+        assertEquals(0, blocker.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        // 阻塞的写操作一个事务，积压的10个合并为一个事务
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    /**
+     * 合并提交失败后逐个重新提交，只有出错的写操作失败
+     */
+    @Test
+    void failedBatchIsRetriedOneByOne() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = blockWriter(release);
+
+        AtomicInteger firstRuns = new AtomicInteger();
+        CompletableFuture<Integer> first = submit(() -> {
+            firstRuns.incrementAndGet();
+            return 1;
+        });
+        waitForQueued(1);
+        CompletableFuture<Integer> failing = submit(() -> {
+            throw new IllegalArgumentException("写入失败");
+        });
+        waitForQueued(2);
+        CompletableFuture<Integer> last = submit(() -> 3);
+        waitForQueued(3);
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(3, last.get(5, TimeUnit.SECONDS));
+        Exception e = assertThrows(Exception.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        // 合并事务回滚后重新执行
+        assertEquals(2, firstRuns.get());
+        verify(transactionManager, atLeastOnce()).rollback(any());
+    }
+
+    @Test
+    void nestedExecuteRunsInlineOnWriterThread() {
+        String thread = writerQueue.execute(() -> writerQueue.execute(() -> Thread.currentThread().getName()));
+        assertEquals("sqlite-writer", thread);
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    /**
+     * 停止时完成已入队的写操作，之后的写操作立即失败
+     */
+    @Test
+    void stopDrainsQueuedWritesAndRejectsNewOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = blockWriter(release);
+        CompletableFuture<Integer> queued = submit(() -> 1);
+        waitForQueued(1);
+
+        CompletableFuture<Void> stopping = CompletableFuture.runAsync(() -> {
+            try {
+                writerQueue.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, callers);
+        release.countDown();
+        stopping.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, blocker.get(5, TimeUnit.SECONDS));
+        assertEquals(1, queued.get(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> writerQueue.execute(() -> 2));
+    }
+
+    /**
+     * 与stop并发提交的写操作要么被执行要么失败，调用方不会一直等待
+     */
+    @Test
+    void writesRacingWithStopNeverHang() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            List<CompletableFuture<Void>> writers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                writers.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        while (true) {
+                            writerQueue.execute(() -> 1);
+                        }
+                    } catch (IllegalStateException e) {
+                        // 写队列已关闭
+                    }
+                }, callers));
+            }
+            Thread.sleep(50);
+            writerQueue.stop();
+            CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get();
+        });
+    }
+
+    private CompletableFuture<Integer> submit(Supplier<Integer> action) {
+        return CompletableFuture.supplyAsync(() -> writerQueue.execute(action), callers);
+    }
+
+    /**
+     * 提交一个阻塞写线程的写操作，返回时写线程已在执行该操作，之后提交的写操作都在队列中积压
+     */
+    private CompletableFuture<Integer> blockWriter(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = submit(() -> {
+            started.countDown();
+            await(release);
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void waitForQueued(int size) throws InterruptedException {
+        Queue<?> queue = (Queue<?>) ReflectionTestUtils.getField(writerQueue, "queue");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.size() < size) {
+            assertTrue(System.currentTimeMillis() < deadline, "写操作未入队");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.qrsignature.service;
+
+import com.qrsignature.cache.SignCache;
+import com.qrsignature.controller.vo.SignStatusResponse;
+import com.qrsignature.entity.SignRecord;
+import com.qrsignature.persistence.SingleWriterQueue;
+import com.qrsignature.repository.SignRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 扫码状态延迟写入：批量写入、与确认签署并发时不回退已签署状态、写入失败后保留待写入记录
+ * 使用真实SQLite库验证UPDATE条件，定时刷新间隔设为1小时，由测试手动触发刷新
+ */
+@DataJpaTest(properties = "sign.scan.flush-interval=1h")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SingleWriterQueue.class, SignScanTracker.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SignScanTrackerTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void sqlite(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dataDir.resolve("scan.db") + "?journal_mode=WAL");
+    }
+
+    @Autowired
+    private SignScanTracker signScanTracker;
+
+    @Autowired
+    private SingleWriterQueue singleWriterQueue;
+
+    @SpyBean
+    private SignRecordRepository signRecordRepository;
+
+    @MockBean
+    private SignCache<SignStatusResponse> statusCache;
+
+    @MockBean
+    private SignProgressTracker signProgressTracker;
+
+    @BeforeEach
+    void cleanUp() {
+        singleWriterQueue.execute(() -> signRecordRepository.deleteAllInBatch());
+    }
+
+    @Test
+    void scansAreMergedIntoOneUpdate() {
+        List<SignRecord> records = List.of(create(1), create(2), create(3));
+        for (SignRecord record : records) {
+            signScanTracker.markScanned(record.getId());
+        }
+        // 刷新前重复扫码只写一次
+        signScanTracker.markScanned(records.get(0).getId());
+        clearInvocations(signRecordRepository);
+
+        flush();
+
+        for (SignRecord record : records) {
+            assertEquals(SignRecord.SignStatus.SCANNED_UNCONFIRMED, status(record));
+        }
+        verify(signRecordRepository, times(1)).updateStatus(anyCollection(),
+                eq(SignRecord.SignStatus.SCANNED_UNCONFIRMED), any(), eq(SignRecord.SignStatus.UNSCANNED));
+        verify(signProgressTracker).recordTransition("p1", "f1",
+                SignRecord.SignStatus.UNSCANNED, SignRecord.SignStatus.SCANNED_UNCONFIRMED, 3);
+        verify(statusCache, never()).invalidate(anyString());
+    }
+
+    @Test
+    void flushAfterConfirmKeepsRecordSigned() {
+        SignRecord scanned = create(1);
+        SignRecord signed = create(2);
+        signScanTracker.markScanned(scanned.getId());
+        signScanTracker.markScanned(signed.getId());
+        // 扫码后在刷新前完成确认签署
+        singleWriterQueue.execute(() -> signRecordRepository.updateStatus(List.of(signed.getId()),
+                SignRecord.SignStatus.SIGNED, signed.getUpdateTime(), SignRecord.SignStatus.UNSCANNED));
+
+        flush();
+
+        assertEquals(SignRecord.SignStatus.SCANNED_UNCONFIRMED, status(scanned));
+        assertEquals(SignRecord.SignStatus.SIGNED, status(signed));
+        // 只统计实际迁移的记录，清除已签署记录可能残留的扫码状态缓存
+        verify(signProgressTracker).recordTransition("p1", "f1",
+                SignRecord.SignStatus.UNSCANNED, SignRecord.SignStatus.SCANNED_UNCONFIRMED, 1);
+        verify(statusCache).invalidate(signed.getId());
+        verify(statusCache, never()).invalidate(scanned.getId());
+    }
+
+    @Test
+    void failedFlushKeepsScansPending() {
+        SignRecord record = create(1);
+        signScanTracker.markScanned(record.getId());
+        doThrow(new IllegalStateException("database is locked"))
+                .when(signRecordRepository).updateStatus(anyCollection(), any(), any(), any());
+
+        assertThrows(IllegalStateException.class, this::flush);
+        assertEquals(SignRecord.SignStatus.UNSCANNED, status(record));
+        verifyNoInteractions(signProgressTracker);
+
+        // 数据库恢复后下次刷新写入
+        reset(signRecordRepository);
+        flush();
+        assertEquals(SignRecord.SignStatus.SCANNED_UNCONFIRMED, status(record));
+    }
+
+    private SignRecord create(int sequence) {
+        SignRecord record = new SignRecord("p1", "u1", "f1", "m");
+        record.setSignatureSequence(sequence);
+        return singleWriterQueue.execute(() -> signRecordRepository.saveAndFlush(record));
+    }
+
+    private SignRecord.SignStatus status(SignRecord record) {
+        return signRecordRepository.findById(record.getId()).orElseThrow().getStatus();
+    }
+
+    private void flush() {
+        ReflectionTestUtils.invokeMethod(signScanTracker, "flush");
+    }
+}
@@ -0,0 +1,139 @@
+package com.qrsignature.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 签名笔迹编解码：编码后解码得到相同的轨迹，格式错误或超出限制的数据被拒绝
+ */
+class SignatureStrokesTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        // 坐标跨笔画回退产生负差值，第二笔设备不支持压力
+        SignatureStrokes original = new SignatureStrokes(360, 180, 4, 8, List.of(
+                stroke(new int[]{400, 420, 455, 300}, new int[]{200, 180, 260, 700},
+                        new int[]{0, 16, 33, 50}, new int[]{128, 140, 255, 1}),
+                stroke(new int[]{10}, new int[]{20}, new int[]{900}, new int[]{0}),
+                stroke(new int[]{1439, 0}, new int[]{719, 0}, new int[]{1200, 1200}, new int[]{0, 0})));
+
+        byte[] data = original.encode();
+        SignatureStrokes decoded = SignatureStrokes.decode(data);
+
+        assertEquals(360, decoded.getWidth());
+        assertEquals(180, decoded.getHeight());
+        assertEquals(4, decoded.getScale());
+        assertEquals(8, decoded.getLineWidth());
+        assertEquals(original.getStrokes().size(), decoded.getStrokes().size());
+        for (int i = 0; i < original.getStrokes().size(); i++) {
+            SignatureStrokes.Stroke expected = original.getStrokes().get(i);
+            SignatureStrokes.Stroke actual = decoded.getStrokes().get(i);
+            assertArrayEquals(expected.getX(), actual.getX());
+            assertArrayEquals(expected.getY(), actual.getY());
+            assertArrayEquals(expected.getTime(), actual.getTime());
+            assertArrayEquals(expected.getPressure(), actual.getPressure());
+        }
+        assertArrayEquals(data, decoded.encode());
+    }
+
+    @Test
+    void rejectsCanvasBeyondLimits() {
+        assertRejected(new SignatureStrokes(1025, 180, 4, 8, List.of(dot())));
+        assertRejected(new SignatureStrokes(360, 1025, 4, 8, List.of(dot())));
+        assertRejected(new SignatureStrokes(360, 180, 17, 8, List.of(dot())));
+        assertRejected(new SignatureStrokes(360, 180, 0, 8, List.of(dot())));
+        // 笔宽超过画布宽度
+        assertRejected(new SignatureStrokes(10, 10, 1, 11, List.of(dot())));
+    }
+
+    @Test
+    void rejectsTooManyPoints() {
+        int count = 100_001;
+        int[] x = new int[count];
+        int[] time = new int[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i % 1000;
+            time[i] = i;
+        }
+        assertRejected(new SignatureStrokes(360, 180, 4, 8,
+                List.of(stroke(x, new int[count], time, new int[count]))));
+
+        // 跨笔画累计
+        int half = count / 2 + 1;
+        SignatureStrokes.Stroke stroke = stroke(new int[half], new int[half], new int[half], new int[half]);
+        assertRejected(new SignatureStrokes(360, 180, 4, 8, List.of(stroke, stroke)));
+    }
+
+    @Test
+    void rejectsInvalidPoints() {
+        // 压力超过255
+        assertRejected(new SignatureStrokes(360, 180, 4, 8,
+                List.of(stroke(new int[]{0}, new int[]{0}, new int[]{0}, new int[]{256}))));
+        // 时间回退
+        assertRejected(new SignatureStrokes(360, 180, 4, 8,
+                List.of(stroke(new int[]{0, 1}, new int[]{0, 1}, new int[]{50, 10}, new int[]{0, 0}))));
+        // 没有笔画
+        assertRejected(new SignatureStrokes(360, 180, 4, 8, List.of()));
+    }
+
+    @Test
+    void rejectsMalformedData() {
+        byte[] data = new SignatureStrokes(360, 180, 4, 8, List.of(dot())).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> SignatureStrokes.decode(new byte[0]));
+        // 截断
+        assertThrows(IllegalArgumentException.class,
+                () -> SignatureStrokes.decode(Arrays.copyOf(data, data.length - 1)));
+        // 尾部多余数据
+        assertThrows(IllegalArgumentException.class,
+                () -> SignatureStrokes.decode(Arrays.copyOf(data, data.length + 1)));
+        // 文件头与版本
+        byte[] badMagic = data.clone();
+        badMagic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> SignatureStrokes.decode(badMagic));
+        byte[] badVersion = data.clone();
+        badVersion[2] = 2;
+        assertThrows(IllegalArgumentException.class, () -> SignatureStrokes.decode(badVersion));
+        // varint超过5个字节
+        byte[] longVarint = {'S', 'K', 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1};
+        assertThrows(IllegalArgumentException.class, () -> SignatureStrokes.decode(longVarint));
+        // 第5个字节超出32位的位不能被丢弃: 360 + 2^32
+        byte[] width = {(byte) 0xE8, (byte) 0x82, (byte) 0x80, (byte) 0x80, 0x10};
+        byte[] overflowWidth = new byte[data.length + 3];
+        System.arraycopy(data, 0, overflowWidth, 0, 3);
+        System.arraycopy(width, 0, overflowWidth, 3, width.length);
+        System.arraycopy(data, 5, overflowWidth, 8, data.length - 5);
+        assertThrows(IllegalArgumentException.class, () -> SignatureStrokes.decode(overflowWidth));
+        // 去掉溢出位后是合法数据
+        overflowWidth[7] = 0;
+        assertEquals(360, SignatureStrokes.decode(overflowWidth).getWidth());
+    }
+
+    @Test
+    void renderSkipsStrokesOutsideCanvas() {
+        SignatureStrokes outside = new SignatureStrokes(100, 50, 1, 2,
+                List.of(stroke(new int[]{500, 600}, new int[]{500, 600}, new int[]{0, 10}, new int[]{0, 0})));
+        assertNull(outside.render(2.0));
+
+        SignatureStrokes inside = new SignatureStrokes(100, 50, 1, 2,
+                List.of(stroke(new int[]{10, 60}, new int[]{10, 40}, new int[]{0, 10}, new int[]{0, 0})));
+        assertNotNull(inside.render(2.0));
+    }
+
+    private static void assertRejected(SignatureStrokes strokes) {
+        byte[] data = strokes.encode();
+        assertThrows(IllegalArgumentException.class, () -> SignatureStrokes.decode(data));
+    }
+
+    private static SignatureStrokes.Stroke dot() {
+        return stroke(new int[]{40}, new int[]{40}, new int[]{0}, new int[]{0});
+    }
+
+    private static SignatureStrokes.Stroke stroke(int[] x, int[] y, int[] time, int[] pressure) {
+        return new SignatureStrokes.Stroke(x, y, time, pressure);
+    }
+}